@@ -0,0 +1,117 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Search Index - Category and price-range index for catalog browsing
+Concepts Used : TreeSet, NavigableSet, HashMap, Comparable, Pagination,
+                Synchronization
+*/
+
+package com.retailpos.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Keys (product IDs) by category and by price.
+// One price-ordered set holds every key and each category has its own, so "products in a category between
+// two prices, cheapest first" is a sub-set walk from the first price in range - no scan of the catalog.
+// The category and price of a key are copied in when it is indexed; call put() again after they change.
+public class CategoryPriceIndex {
+
+    // A key with the category and price it was indexed under, ordered by price then key
+    private static class Entry implements Comparable<Entry> {
+        final String key;
+        final String category;
+        final double price;
+
+        Entry(String key, String category, double price) {
+            this.key = key;
+            this.category = category;
+            this.price = price;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : key.compareTo(other.key);
+        }
+    }
+
+    // Bounds for sub-set lookups: "" sorts before every key and the max character after every key
+    private static final String LOWEST_KEY = "";
+    private static final String HIGHEST_KEY = String.valueOf(Character.MAX_VALUE);
+
+    private final TreeSet<Entry> byPrice = new TreeSet<>();
+    private final HashMap<String, TreeSet<Entry>> byCategory = new HashMap<>();
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    // Index a key, replacing its previous category and price
+    public synchronized void put(String key, String category, double price) {
+        remove(key);
+        Entry entry = new Entry(key, categoryKey(category), price);
+        entries.put(key, entry);
+        byPrice.add(entry);
+        TreeSet<Entry> categorySet = byCategory.get(entry.category);
+        if (categorySet == null) {
+            categorySet = new TreeSet<>();
+            byCategory.put(entry.category, categorySet);
+        }
+        categorySet.add(entry);
+    }
+
+    // Remove a key from the index
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            byPrice.remove(entry);
+            TreeSet<Entry> categorySet = byCategory.get(entry.category);
+            categorySet.remove(entry);
+            if (categorySet.isEmpty()) {
+                byCategory.remove(entry.category);
+            }
+        }
+    }
+
+    // Keys priced from minPrice to maxPrice (inclusive), cheapest first, skipping the first offset matches.
+    // category is matched ignoring case; null means every category
+    public synchronized ArrayList<String> find(String category, double minPrice, double maxPrice, int offset, int limit) {
+        ArrayList<String> results = new ArrayList<>();
+        NavigableSet<Entry> range = range(category, minPrice, maxPrice);
+        if (range == null) {
+            return results;
+        }
+        Iterator<Entry> iterator = range.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (results.size() < limit && iterator.hasNext()) {
+            results.add(iterator.next().key);
+        }
+        return results;
+    }
+
+    // Number of keys find() would page through
+    public synchronized int count(String category, double minPrice, double maxPrice) {
+        NavigableSet<Entry> range = range(category, minPrice, maxPrice);
+        return range == null ? 0 : range.size();
+    }
+
+    // Categories in the index (lowercase)
+    public synchronized ArrayList<String> categories() {
+        return new ArrayList<>(byCategory.keySet());
+    }
+
+    private NavigableSet<Entry> range(String category, double minPrice, double maxPrice) {
+        TreeSet<Entry> set = category == null ? byPrice : byCategory.get(categoryKey(category));
+        if (set == null || minPrice > maxPrice) {
+            return null;
+        }
+        return set.subSet(new Entry(LOWEST_KEY, null, minPrice), true, new Entry(HIGHEST_KEY, null, maxPrice), true);
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,316 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Search Index - Typo-tolerant word search with a BK-tree
+Concepts Used : BK-Tree, Edit Distance (Damerau-Levenshtein), HashMap, HashSet, PriorityQueue,
+                Synchronization
+*/
+
+package com.retailpos.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+// Typo-tolerant search over the words of a text (e.g. product names).
+// Every distinct word goes into a BK-tree, where a child hangs under its parent by their edit distance.
+// By the triangle inequality a search for words within distance n of the query only has to visit
+// children at distance d-n .. d+n of each node, so only a small part of the vocabulary is compared.
+// A key matches when every query word is close to one of its words; matches are ranked by total distance.
+public class FuzzyWordIndex {
+
+    // A word of the vocabulary and the keys whose text contains it
+    private static class Node {
+        final String word;
+        final HashSet<String> keys = new HashSet<>();
+        HashMap<Integer, Node> children;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    // A key and its distance from the query
+    private static class Match {
+        final String key;
+        final int distance;
+
+        Match(String key, int distance) {
+            this.key = key;
+            this.distance = distance;
+        }
+    }
+
+    // Working space for distance(), reused across the comparisons of one search or insert
+    private static class DistanceTable {
+        int[] cells = new int[0];
+        int[] lastRow = new int[0];
+
+        void ensureCapacity(int cellCount, int columns) {
+            if (cells.length < cellCount) {
+                cells = new int[cellCount];
+            }
+            if (lastRow.length < columns) {
+                lastRow = new int[columns];
+            }
+        }
+    }
+
+    private Node root;
+    private final HashMap<String, Node> nodesByWord = new HashMap<>();
+    private final HashMap<String, String[]> wordsByKey = new HashMap<>();
+
+    // Index a key with its text, replacing what was indexed for it before
+    public synchronized void put(String key, String text) {
+        remove(key);
+        String[] words = words(text);
+        for (String word : words) {
+            Node node = nodesByWord.get(word);
+            if (node == null) {
+                node = insert(word);
+            }
+            node.keys.add(key);
+        }
+        wordsByKey.put(key, words);
+    }
+
+    // Remove a key. Its words stay in the tree (with no keys) so the tree never needs rebuilding
+    public synchronized void remove(String key) {
+        String[] words = wordsByKey.remove(key);
+        if (words != null) {
+            for (String word : words) {
+                nodesByWord.get(word).keys.remove(key);
+            }
+        }
+    }
+
+    // Keys whose words are within the allowed typos of every query word, closest first.
+    // The tree walk stops once budgetNanos have passed and ranks what it found by then.
+    public synchronized ArrayList<String> search(String query, int maxResults, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        String[] queryWords = words(query);
+        ArrayList<String> results = new ArrayList<>();
+        if (queryWords.length == 0 || root == null) {
+            return results;
+        }
+
+        // Vocabulary words close to each query word, with their distances
+        ArrayList<HashMap<String, Integer>> matchedWords = new ArrayList<>();
+        int rarest = 0;
+        long rarestKeys = Long.MAX_VALUE;
+        for (int q = 0; q < queryWords.length; q++) {
+            HashMap<String, Integer> matched = closeWords(queryWords[q], deadline);
+            long keyCount = 0;
+            for (String word : matched.keySet()) {
+                keyCount += nodesByWord.get(word).keys.size();
+            }
+            if (keyCount < rarestKeys) {
+                rarest = q;
+                rarestKeys = keyCount;
+            }
+            matchedWords.add(matched);
+        }
+
+        // The other query words add at least their closest distance to any key's total
+        int othersMinimum = 0;
+        for (int q = 0; q < matchedWords.size(); q++) {
+            if (q != rarest) {
+                othersMinimum += matchedWords.get(q).isEmpty() ? 0 : Collections.min(matchedWords.get(q).values());
+            }
+        }
+
+        // Candidates come from the query word with the fewest keys, closest words first; each is scored on
+        // all query words. The heap keeps the best maxResults so far, worst on top, and the walk stops
+        // once no remaining candidate can beat the worst of them
+        final HashMap<String, Integer> rarestWords = matchedWords.get(rarest);
+        ArrayList<String> candidateWords = new ArrayList<>(rarestWords.keySet());
+        Collections.sort(candidateWords, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Integer.compare(rarestWords.get(a), rarestWords.get(b));
+            }
+        });
+        PriorityQueue<Match> best = new PriorityQueue<>(maxResults + 1, new Comparator<Match>() {
+            @Override
+            public int compare(Match a, Match b) {
+                return Integer.compare(b.distance, a.distance);
+            }
+        });
+        HashSet<String> seen = new HashSet<>();
+        for (String word : candidateWords) {
+            int lowestPossible = rarestWords.get(word) + othersMinimum;
+            for (String key : nodesByWord.get(word).keys) {
+                if (best.size() == maxResults && best.peek().distance <= lowestPossible) {
+                    break;
+                }
+                if (!seen.add(key)) {
+                    continue;
+                }
+                int total = score(wordsByKey.get(key), matchedWords);
+                if (total >= 0) {
+                    best.add(new Match(key, total));
+                    if (best.size() > maxResults) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        while (!best.isEmpty()) {
+            results.add(best.poll().key);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    // Walk the BK-tree for words within the allowed typos of a query word
+    private HashMap<String, Integer> closeWords(String queryWord, long deadline) {
+        HashMap<String, Integer> matched = new HashMap<>();
+        int maxDistance = allowedTypos(queryWord);
+        DistanceTable table = new DistanceTable();
+        ArrayList<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = distance(queryWord, node.word, table);
+            if (distance <= maxDistance && !node.keys.isEmpty()) {
+                matched.put(node.word, distance);
+            }
+            if (node.children != null) {
+                for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                    Node child = node.children.get(d);
+                    if (child != null) {
+                        pending.add(child);
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    // Total distance of a key's words to the query words, or -1 if some query word matches none of them
+    private static int score(String[] keyWords, ArrayList<HashMap<String, Integer>> matchedWords) {
+        int total = 0;
+        for (HashMap<String, Integer> matched : matchedWords) {
+            int closest = Integer.MAX_VALUE;
+            for (String word : keyWords) {
+                Integer distance = matched.get(word);
+                if (distance != null && distance < closest) {
+                    closest = distance;
+                }
+            }
+            if (closest == Integer.MAX_VALUE) {
+                return -1;
+            }
+            total += closest;
+        }
+        return total;
+    }
+
+    // Typos allowed in a query word: none for very short words, one up to five letters, else two
+    private static int allowedTypos(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    // Add a new word to the BK-tree
+    private Node insert(String word) {
+        Node added = new Node(word);
+        nodesByWord.put(word, added);
+        if (root == null) {
+            root = added;
+            return added;
+        }
+        DistanceTable table = new DistanceTable();
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word, table);
+            if (node.children == null) {
+                node.children = new HashMap<>();
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, added);
+                return added;
+            }
+            node = child;
+        }
+    }
+
+    // Edit distance where an insertion, deletion, substitution or swap of two neighbouring letters
+    // counts as one typo ("phnoe" is one typo from "phone"). This is the true Damerau-Levenshtein
+    // distance, where letters may still be edited after a swap ("ca" -> "abc" is 2). The simpler
+    // restricted form breaks the triangle inequality, which the BK-tree walk depends on.
+    private static int distance(String a, String b, DistanceTable table) {
+        int n = a.length();
+        int m = b.length();
+        int width = m + 2;
+        table.ensureCapacity((n + 2) * width, m + 1);
+        int[] cells = table.cells;
+        int[] lastRow = table.lastRow;
+
+        // cells[(i + 1) * width + (j + 1)] is the distance between the first i letters of a and the
+        // first j of b; the extra row and column before them act as "unreachable"
+        int unreachable = n + m;
+        cells[0] = unreachable;
+        for (int i = 0; i <= n; i++) {
+            cells[(i + 1) * width] = unreachable;
+            cells[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            cells[j + 1] = unreachable;
+            cells[width + j + 1] = j;
+            lastRow[j] = 0;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            int row = (i + 1) * width;
+            int lastColumn = 0; // Last column of this row whose letter of b equals ca
+            for (int j = 1; j <= m; j++) {
+                int swapRow = lastRow[j]; // Last earlier row whose letter of a equals b[j]
+                int swapColumn = lastColumn;
+                int cost = 1;
+                if (ca == b.charAt(j - 1)) {
+                    cost = 0;
+                    lastColumn = j;
+                }
+                int value = Math.min(Math.min(cells[row + j] + 1, cells[row - width + j + 1] + 1),
+                        cells[row - width + j] + cost);
+                // Swap the two letters, editing whatever lies between them
+                int swapped = cells[swapRow * width + swapColumn] + (i - swapRow - 1) + 1 + (j - swapColumn - 1);
+                cells[row + j + 1] = Math.min(value, swapped);
+            }
+            for (int j = 1; j <= m; j++) {
+                if (b.charAt(j - 1) == ca) {
+                    lastRow[j] = i;
+                }
+            }
+        }
+        return cells[(n + 1) * width + m + 1];
+    }
+
+    // Lowercase words of a text, split on anything that is not a letter or digit
+    private static String[] words(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        String lower = text == null ? "" : text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (!words.contains(lower.substring(start, i))) {
+                    words.add(lower.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
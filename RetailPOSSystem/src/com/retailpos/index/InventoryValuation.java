@@ -0,0 +1,99 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Aggregate - Running stock value of the inventory, in total and per category
+Concepts Used : Fixed-Point Arithmetic, ConcurrentHashMap, AtomicLong, TreeMap,
+                Incremental Aggregation
+*/
+
+package com.retailpos.index;
+
+import com.retailpos.util.MoneyUtil;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stock value (price x quantity) kept as a running total instead of being summed over the catalog.
+// Each key's price, quantity and category are remembered, so an update only moves the difference
+// into the totals; reads are O(1) for the total and O(categories) for the subtotals.
+// Amounts are whole paise (long), so the totals are exact however many updates they go through.
+// Callers pass the latest values of a key while holding that key's lock, so updates land in order.
+public class InventoryValuation {
+
+    // What one key currently contributes
+    private static class Line {
+        String category;
+        long pricePaise;
+        long quantity;
+    }
+
+    private final ConcurrentHashMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final AtomicLong totalPaise = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> categoryPaise = new ConcurrentHashMap<>();
+
+    // Record the current price, quantity and category of a key
+    public void update(String key, String category, double price, long quantity) {
+        Line line = lines.computeIfAbsent(key, k -> new Line());
+        String categoryKey = categoryKey(category);
+        long pricePaise = MoneyUtil.toPaise(price);
+        synchronized (line) {
+            if (categoryKey.equals(line.category)) {
+                // Only the difference moves - the usual case, a stock change
+                long change = pricePaise * quantity - line.pricePaise * line.quantity;
+                if (change != 0) {
+                    totalPaise.addAndGet(change);
+                    categoryTotal(categoryKey).addAndGet(change);
+                }
+            } else {
+                subtract(line);
+                totalPaise.addAndGet(pricePaise * quantity);
+                categoryTotal(categoryKey).addAndGet(pricePaise * quantity);
+            }
+            line.category = categoryKey;
+            line.pricePaise = pricePaise;
+            line.quantity = quantity;
+        }
+    }
+
+    // Take a key out of the totals
+    public void remove(String key) {
+        Line line = lines.remove(key);
+        if (line != null) {
+            synchronized (line) {
+                subtract(line);
+                line.category = null;
+            }
+        }
+    }
+
+    // Total stock value in paise
+    public long getTotalPaise() {
+        return totalPaise.get();
+    }
+
+    // Stock value of each category in paise (categories in lowercase, sorted)
+    public TreeMap<String, Long> getCategoryTotalsPaise() {
+        TreeMap<String, Long> totals = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : categoryPaise.entrySet()) {
+            totals.put(entry.getKey(), entry.getValue().get());
+        }
+        return totals;
+    }
+
+    private void subtract(Line line) {
+        if (line.category != null) {
+            long value = line.pricePaise * line.quantity;
+            totalPaise.addAndGet(-value);
+            categoryTotal(line.category).addAndGet(-value);
+        }
+    }
+
+    private AtomicLong categoryTotal(String categoryKey) {
+        return categoryPaise.computeIfAbsent(categoryKey, k -> new AtomicLong());
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Search Index - Trigram inverted index for substring search
+Concepts Used : HashMap, Inverted Index, Sorted Arrays, Binary Search, Bit Packing,
+                Synchronization
+*/
+
+package com.retailpos.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Inverted index of three-character substrings (trigrams) for case-insensitive "contains" search.
+// Each key (e.g. a product ID) is indexed with a few text fields. A query's trigrams are looked up
+// and their posting lists intersected, so only keys holding every trigram of the query are checked
+// with contains() - instead of every key. Queries shorter than three characters check all keys,
+// against the lowercased copies kept here.
+public class TrigramIndex {
+
+    // Sorted list of document numbers holding one trigram
+    private static class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            int position = size == 0 || docs[size - 1] < doc ? size : Arrays.binarySearch(docs, 0, size, doc);
+            if (position >= 0 && position < size) {
+                return; // Already present
+            }
+            position = position < 0 ? -position - 1 : position;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, position, docs, position + 1, size - position);
+            docs[position] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int position = Arrays.binarySearch(docs, 0, size, doc);
+            if (position >= 0) {
+                System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+    }
+
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+    private final HashMap<String, Integer> docByKey = new HashMap<>();
+    private final ArrayList<String> keys = new ArrayList<>();         // Document number -> key
+    private final ArrayList<String[]> fields = new ArrayList<>();     // Document number -> lowercased fields
+    private final ArrayDeque<Integer> freeDocs = new ArrayDeque<>();  // Numbers of removed documents
+
+    // Index a key with its searchable fields, replacing what was indexed for it before
+    public synchronized void put(String key, String... texts) {
+        Integer existing = docByKey.get(key);
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(doc);
+        } else {
+            doc = freeDocs.isEmpty() ? keys.size() : freeDocs.poll();
+            if (doc == keys.size()) {
+                keys.add(key);
+                fields.add(null);
+            } else {
+                keys.set(doc, key);
+            }
+            docByKey.put(key, doc);
+        }
+
+        String[] lowered = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            lowered[i] = texts[i] == null ? "" : texts[i].toLowerCase();
+            String text = lowered[i];
+            for (int j = 0; j + 3 <= text.length(); j++) {
+                long trigram = trigram(text, j);
+                Postings list = postings.get(trigram);
+                if (list == null) {
+                    list = new Postings();
+                    postings.put(trigram, list);
+                }
+                list.add(doc);
+            }
+        }
+        fields.set(doc, lowered);
+    }
+
+    // Remove a key from the index
+    public synchronized void remove(String key) {
+        Integer doc = docByKey.remove(key);
+        if (doc != null) {
+            unindex(doc);
+            keys.set(doc, null);
+            fields.set(doc, null);
+            freeDocs.add(doc);
+        }
+    }
+
+    // Keys with at least one field containing the query (case-insensitive)
+    public synchronized ArrayList<String> search(String query) {
+        ArrayList<String> results = new ArrayList<>();
+        String lowerQuery = query.toLowerCase();
+
+        if (lowerQuery.length() < 3) {
+            for (int doc = 0; doc < keys.size(); doc++) {
+                if (keys.get(doc) != null && matches(doc, lowerQuery)) {
+                    results.add(keys.get(doc));
+                }
+            }
+            return results;
+        }
+
+        // Posting lists of the query's trigrams, shortest first
+        Postings[] lists = new Postings[lowerQuery.length() - 2];
+        for (int j = 0; j < lists.length; j++) {
+            lists[j] = postings.get(trigram(lowerQuery, j));
+            if (lists[j] == null || lists[j].size == 0) {
+                return results;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        Postings shortest = lists[0];
+        for (int i = 0; i < shortest.size; i++) {
+            int doc = shortest.docs[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j] == shortest || lists[j].contains(doc);
+            }
+            // The trigrams may be spread over different fields or out of order, so confirm the match
+            if (inAll && matches(doc, lowerQuery)) {
+                results.add(keys.get(doc));
+            }
+        }
+        return results;
+    }
+
+    // Number of indexed keys
+    public synchronized int size() {
+        return docByKey.size();
+    }
+
+    // Take a document out of the posting lists of its trigrams
+    private void unindex(int doc) {
+        String[] lowered = fields.get(doc);
+        if (lowered == null) {
+            return;
+        }
+        for (String text : lowered) {
+            for (int j = 0; j + 3 <= text.length(); j++) {
+                long trigram = trigram(text, j);
+                Postings list = postings.get(trigram);
+                if (list != null) {
+                    list.remove(doc);
+                    if (list.size == 0) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean matches(int doc, String lowerQuery) {
+        for (String text : fields.get(doc)) {
+            if (text.contains(lowerQuery)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Three characters packed into one long
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -13,19 +13,43 @@ import com.retailpos.model.Customer;
 import com.retailpos.model.Bill;
 import com.retailpos.service.InventoryService;
 import com.retailpos.service.BillingService;
+import com.retailpos.service.PromotionService;
+import com.retailpos.service.ReservationService;
+import com.retailpos.service.SequenceService;
+import com.retailpos.service.TaxService;
+import com.retailpos.render.TextRenderer;
+import com.retailpos.repository.BillRepository;
+import com.retailpos.repository.CustomerRepository;
+import com.retailpos.repository.FileCustomerRepository;
+import com.retailpos.repository.FileProductRepository;
+import com.retailpos.repository.FileUserRepository;
+import com.retailpos.repository.JournaledCustomerRepository;
+import com.retailpos.repository.JournaledProductRepository;
+import com.retailpos.repository.ProductRepository;
+import com.retailpos.repository.UserRepository;
+import com.retailpos.storage.BillWriter;
+import com.retailpos.storage.SegmentedBillStore;
+import com.retailpos.storage.WriteBehindPersister;
 import com.retailpos.exception.*;
 import com.retailpos.util.FileUtil;
 import com.retailpos.util.ValidationUtil;
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.Map;
 import java.io.IOException;
+import java.time.LocalDate;
 
 // Main Application class
 public class MainApp {
 
+    // Products shown per page when browsing by category / price
+    private static final int BROWSE_PAGE_SIZE = 20;
+
     private static Scanner scanner = new Scanner(System.in);
     private static InventoryService inventoryService;
     private static BillingService billingService;
+    private static WriteBehindPersister persister;
+    private static UserRepository userRepository;
     private static String currentUser;
     private static String currentUserRole;
 
@@ -34,8 +58,29 @@ public class MainApp {
 
         FileUtil.initializeFiles();
 
-        inventoryService = new InventoryService();
-        billingService = new BillingService(inventoryService);
+        // Storage backend per store: journaled products and customers, segmented bills.
+        // Inventory and customer saves run on a background writer, flushed once a second
+        persister = new WriteBehindPersister(1000, 10000);
+        userRepository = new FileUserRepository(FileUtil.USERS_FILE);
+        SequenceService sequences = new SequenceService(FileUtil.SEQUENCES_FILE);
+        inventoryService = new InventoryService(openProductRepository(), persister, sequences,
+                new TaxService(FileUtil.TAX_RATES_FILE));
+        billingService = new BillingService(inventoryService, openCustomerRepository(), openBillRepository(),
+                persister, ReservationService.DEFAULT_TTL_MILLIS, sequences,
+                new PromotionService(FileUtil.PROMOTIONS_FILE));
+
+        // Tell the user as soon as a product drops below its reorder level
+        inventoryService.addStockLevelListener(new InventoryService.StockLevelListener() {
+            @Override
+            public void stockLow(Product product) {
+                System.out.println("⚠ Low stock: " + product.getProductName() + " (" + product.getProductId()
+                        + ") has " + product.getStockQuantity() + " left, reorder level " + product.getReorderLevel());
+            }
+
+            @Override
+            public void stockRestored(Product product) {
+            }
+        });
 
         displayWelcomeScreen();
 
@@ -87,6 +132,39 @@ public class MainApp {
         }
     }
 
+    // Products with a stock journal, or plain products.txt if the journal cannot be opened
+    private static ProductRepository openProductRepository() {
+        try {
+            return new JournaledProductRepository(FileUtil.PRODUCTS_FILE, FileUtil.PRODUCTS_SNAPSHOT,
+                    FileUtil.STOCK_JOURNAL_FILE);
+        } catch (IOException e) {
+            System.err.println("Error opening stock journal: " + e.getMessage());
+            return new FileProductRepository(FileUtil.PRODUCTS_FILE, FileUtil.PRODUCTS_SNAPSHOT);
+        }
+    }
+
+    // Customers with a change log, or plain customers.txt if the log cannot be opened
+    private static CustomerRepository openCustomerRepository() {
+        try {
+            return new JournaledCustomerRepository(FileUtil.CUSTOMERS_FILE, FileUtil.CUSTOMERS_SNAPSHOT,
+                    FileUtil.CUSTOMER_LOG_FILE);
+        } catch (IOException e) {
+            System.err.println("Error opening customer log: " + e.getMessage());
+            return new FileCustomerRepository(FileUtil.CUSTOMERS_FILE, FileUtil.CUSTOMERS_SNAPSHOT);
+        }
+    }
+
+    // Bills in daily segments, each bill synced before its invoice prints
+    private static BillRepository openBillRepository() {
+        try {
+            return new SegmentedBillStore(FileUtil.BILL_SEGMENTS_DIR, FileUtil.BILLS_FILE,
+                    BillWriter.Durability.PER_BILL, 0);
+        } catch (IOException e) {
+            System.err.println("Error loading bills: " + e.getMessage());
+            return null;
+        }
+    }
+
     // Welcome Screen
     private static void displayWelcomeScreen() {
         System.out.println("\n");
@@ -124,20 +202,14 @@ public class MainApp {
                 System.out.print("Password: ");
                 String password = scanner.nextLine().trim();
 
-                ArrayList<String> users = FileUtil.readFromFile(FileUtil.USERS_FILE);
-
-                for (String line : users) {
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 3) {
-                        if (parts[0].equals(username) && parts[1].equals(password)) {
-                            currentUser = username;
-                            currentUserRole = parts[2];
-                            System.out.println("\n Login successful!");
-                            System.out.println("Welcome, " + username + " (" + currentUserRole + ")");
-                            Thread.sleep(1000);
-                            return true;
-                        }
-                    }
+                String role = userRepository.findRole(username, password);
+                if (role != null) {
+                    currentUser = username;
+                    currentUserRole = role;
+                    System.out.println("\n Login successful!");
+                    System.out.println("Welcome, " + username + " (" + currentUserRole + ")");
+                    Thread.sleep(1000);
+                    return true;
                 }
 
                 attempts++;
@@ -181,7 +253,8 @@ public class MainApp {
             System.out.println("║ 3. Search Product                     ║");
             System.out.println("║ 4. Update Product                     ║");
             System.out.println("║ 5. Delete Product                     ║");
-            System.out.println("║ 6. Back to Main Menu                  ║");
+            System.out.println("║ 6. Browse by Category / Price         ║");
+            System.out.println("║ 7. Back to Main Menu                  ║");
             System.out.println("╚═══════════════════════════════════════╝");
             System.out.print("Enter your choice: ");
 
@@ -205,6 +278,9 @@ public class MainApp {
                         deleteProduct();
                         break;
                     case "6":
+                        browseProducts();
+                        break;
+                    case "7":
                         back = true;
                         break;
                     default:
@@ -259,7 +335,15 @@ public class MainApp {
         ArrayList<Product> results = inventoryService.searchProducts(searchTerm);
 
         if (results.isEmpty()) {
-            System.out.println("No products found.");
+            ArrayList<Product> closest = inventoryService.searchProductsFuzzy(searchTerm);
+            if (closest.isEmpty()) {
+                System.out.println("No products found.");
+            } else {
+                System.out.println("\nNo exact match. Did you mean:");
+                for (Product product : closest) {
+                    System.out.println(product.toString());
+                }
+            }
         } else {
             System.out.println("\n--- Search Results ---");
             for (Product product : results) {
@@ -268,6 +352,49 @@ public class MainApp {
         }
     }
 
+    // Browse products of a category within a price range, cheapest first, one page at a time
+    private static void browseProducts() {
+        try {
+            System.out.print("\nCategory (Enter for all) " + inventoryService.getCategories() + ": ");
+            String category = scanner.nextLine().trim();
+
+            System.out.print("Minimum Price (Enter for none): ");
+            String minStr = scanner.nextLine().trim();
+            double minPrice = minStr.isEmpty() ? 0 : ValidationUtil.validatePositiveDouble(minStr, "Minimum Price");
+
+            System.out.print("Maximum Price (Enter for none): ");
+            String maxStr = scanner.nextLine().trim();
+            double maxPrice = maxStr.isEmpty() ? Double.MAX_VALUE : ValidationUtil.validatePositiveDouble(maxStr, "Maximum Price");
+
+            String categoryFilter = category.isEmpty() ? null : category;
+            int total = inventoryService.countProducts(categoryFilter, minPrice, maxPrice);
+            if (total == 0) {
+                System.out.println("No products found.");
+                return;
+            }
+
+            int pages = (total + BROWSE_PAGE_SIZE - 1) / BROWSE_PAGE_SIZE;
+            TextRenderer out = TextRenderer.console();
+            for (int page = 1; page <= pages; page++) {
+                System.out.println("\n--- Page " + page + " of " + pages + " (" + total + " products) ---");
+                Product.renderHeadings(out);
+                for (Product product : inventoryService.browseProducts(categoryFilter, minPrice, maxPrice,
+                        page, BROWSE_PAGE_SIZE)) {
+                    product.renderRow(out);
+                }
+                out.flush();
+                if (page < pages) {
+                    System.out.print("Next page? (y/n): ");
+                    if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidInputException e) {
+            System.out.println("X " + e.getMessage());
+        }
+    }
+
     // Update product
     private static void updateProduct() {
         try {
@@ -279,36 +406,44 @@ public class MainApp {
 
             System.out.println("\nEnter new details (press Enter to keep current value):");
 
-            System.out.print("Product Name [" + existingProduct.getProductName() + "]: ");
+            // Edit a copy; tills may be selling the product meanwhile
+            Product updatedProduct = new Product(productId, existingProduct.getProductName(),
+                    existingProduct.getCategory(), existingProduct.getPrice(), 0, existingProduct.getDescription());
+            updatedProduct.setReorderLevel(existingProduct.getReorderLevel());
+
+            System.out.print("Product Name [" + updatedProduct.getProductName() + "]: ");
             String name = scanner.nextLine().trim();
             if (!name.isEmpty())
-                existingProduct.setProductName(name);
+                updatedProduct.setProductName(name);
 
-            System.out.print("Category [" + existingProduct.getCategory() + "]: ");
+            System.out.print("Category [" + updatedProduct.getCategory() + "]: ");
             String category = scanner.nextLine().trim();
             if (!category.isEmpty())
-                existingProduct.setCategory(category);
+                updatedProduct.setCategory(category);
 
-            System.out.print("Price [" + existingProduct.getPrice() + "]: ");
+            System.out.print("Price [" + updatedProduct.getPrice() + "]: ");
             String priceStr = scanner.nextLine().trim();
             if (!priceStr.isEmpty()) {
                 double price = ValidationUtil.validatePositiveDouble(priceStr, "Price");
-                existingProduct.setPrice(price);
+                updatedProduct.setPrice(price);
             }
 
-            System.out.print("Stock Quantity [" + existingProduct.getStockQuantity() + "]: ");
+            // The new quantity is applied as a change from the one shown
+            int shownStock = existingProduct.getStockQuantity();
+            int stockDelta = 0;
+            System.out.print("Stock Quantity [" + shownStock + "]: ");
             String stockStr = scanner.nextLine().trim();
             if (!stockStr.isEmpty()) {
                 int stock = ValidationUtil.validatePositiveInteger(stockStr, "Stock");
-                existingProduct.setStockQuantity(stock);
+                stockDelta = stock - shownStock;
             }
 
-            System.out.print("Description [" + existingProduct.getDescription() + "]: ");
+            System.out.print("Description [" + updatedProduct.getDescription() + "]: ");
             String description = scanner.nextLine().trim();
             if (!description.isEmpty())
-                existingProduct.setDescription(description);
+                updatedProduct.setDescription(description);
 
-            inventoryService.updateProduct(productId, existingProduct);
+            inventoryService.updateProduct(productId, updatedProduct, stockDelta);
 
         } catch (ProductNotFoundException | InvalidInputException e) {
             System.out.println("X " + e.getMessage());
@@ -350,7 +485,8 @@ public class MainApp {
             System.out.println("║ 2. Add Stock                          ║");
             System.out.println("║ 3. Low Stock Alert                    ║");
             System.out.println("║ 4. Inventory Value                    ║");
-            System.out.println("║ 5. Back to Main Menu                  ║");
+            System.out.println("║ 5. Set Reorder Level                  ║");
+            System.out.println("║ 6. Back to Main Menu                  ║");
             System.out.println("╚═══════════════════════════════════════╝");
             System.out.print("Enter your choice: ");
 
@@ -371,6 +507,9 @@ public class MainApp {
                         displayInventoryValue();
                         break;
                     case "5":
+                        setReorderLevel();
+                        break;
+                    case "6":
                         back = true;
                         break;
                     default:
@@ -423,6 +562,26 @@ public class MainApp {
         }
     }
 
+    // Set the low-stock reorder level of a product
+    private static void setReorderLevel() {
+        try {
+            System.out.print("\nEnter Product ID: ");
+            String productId = scanner.nextLine().trim();
+
+            Product product = inventoryService.getProduct(productId);
+            System.out.println("Current Reorder Level: " + product.getReorderLevel());
+
+            System.out.print("Enter new reorder level: ");
+            String levelStr = scanner.nextLine().trim();
+            int level = ValidationUtil.validatePositiveInteger(levelStr, "Reorder Level");
+
+            inventoryService.setReorderLevel(productId, level);
+
+        } catch (ProductNotFoundException | InvalidInputException e) {
+            System.out.println("X " + e.getMessage());
+        }
+    }
+
     // Display total inventory value
     private static void displayInventoryValue() {
         double totalValue = inventoryService.getTotalInventoryValue();
@@ -431,6 +590,9 @@ public class MainApp {
         System.out.println("\n--- Inventory Summary ---");
         System.out.println("Total Products       : " + productCount);
         System.out.println("Total Inventory Value: Rs. " + String.format("%.2f", totalValue));
+        for (Map.Entry<String, Double> entry : inventoryService.getCategoryValues().entrySet()) {
+            System.out.println(String.format("  %-19s: Rs. %.2f", entry.getKey(), entry.getValue()));
+        }
     }
 
     // Billing Menu
@@ -475,23 +637,28 @@ public class MainApp {
 
     // Create new bill
     private static void createBill() {
+        Bill bill = null;
         try {
             System.out.println("\n--- Create New Bill ---");
 
             System.out.print("Enter Customer ID: ");
             String customerId = scanner.nextLine().trim();
 
-            Bill bill = billingService.createBill(customerId, currentUser);
+            bill = billingService.createBill(customerId, currentUser);
             System.out.println("Bill created: " + bill.getBillId());
 
             boolean addingItems = true;
             while (addingItems) {
-                System.out.print("\nEnter Product ID (or 'done' to finish): ");
+                System.out.print("\nEnter Product ID (or 'edit' to change a line, 'done' to finish): ");
                 String productId = scanner.nextLine().trim();
 
                 if (productId.equalsIgnoreCase("done")) {
                     break;
                 }
+                if (productId.equalsIgnoreCase("edit")) {
+                    editBillLine(bill);
+                    continue;
+                }
 
                 System.out.print("Enter Quantity: ");
                 String qtyStr = scanner.nextLine().trim();
@@ -515,12 +682,34 @@ public class MainApp {
                 if (confirm.equals("y")) {
                     billingService.completeBilling(bill);
                 } else {
+                    billingService.cancelBilling(bill);
                     System.out.println("Billing cancelled.");
                 }
             } else {
                 System.out.println("No items added. Billing cancelled.");
             }
 
+        } catch (InvalidInputException | ProductNotFoundException | InsufficientStockException e) {
+            System.out.println("X " + e.getMessage());
+            if (bill != null) {
+                billingService.cancelBilling(bill); // Release whatever is still reserved
+            }
+        } catch (IOException e) {
+            System.out.println("X Bill could not be saved, nothing was sold: " + e.getMessage());
+            billingService.cancelBilling(bill);
+        }
+    }
+
+    // Change the quantity of a line on an open bill, or void it with 0
+    private static void editBillLine(Bill bill) {
+        System.out.print("Enter Product ID to change: ");
+        String productId = scanner.nextLine().trim();
+        System.out.print("Enter new Quantity (0 to remove): ");
+        String qtyStr = scanner.nextLine().trim();
+
+        try {
+            int quantity = qtyStr.equals("0") ? 0 : ValidationUtil.validatePositiveInteger(qtyStr, "Quantity");
+            billingService.changeItemQuantity(bill, productId, quantity);
         } catch (InvalidInputException | ProductNotFoundException | InsufficientStockException e) {
             System.out.println("X " + e.getMessage());
         }
@@ -637,9 +826,10 @@ public class MainApp {
             System.out.println("║           REPORTS                     ║");
             System.out.println("╠═══════════════════════════════════════╣");
             System.out.println("║ 1. Sales Report                       ║");
-            System.out.println("║ 2. Inventory Report                   ║");
-            System.out.println("║ 3. Customer Report                    ║");
-            System.out.println("║ 4. Back to Main Menu                  ║");
+            System.out.println("║ 2. Sales Report (Date Range)          ║");
+            System.out.println("║ 3. Inventory Report                   ║");
+            System.out.println("║ 4. Customer Report                    ║");
+            System.out.println("║ 5. Back to Main Menu                  ║");
             System.out.println("╚═══════════════════════════════════════╝");
             System.out.print("Enter your choice: ");
 
@@ -650,13 +840,16 @@ public class MainApp {
                     billingService.generateSalesReport();
                     break;
                 case "2":
+                    salesReportForPeriod();
+                    break;
+                case "3":
                     inventoryService.viewAllProducts();
                     displayInventoryValue();
                     break;
-                case "3":
+                case "4":
                     billingService.viewAllCustomers();
                     break;
-                case "4":
+                case "5":
                     back = true;
                     break;
                 default:
@@ -665,8 +858,32 @@ public class MainApp {
         }
     }
 
+    // Sales report between two dates
+    private static void salesReportForPeriod() {
+        try {
+            System.out.print("\nFrom date (dd-MM-yyyy): ");
+            LocalDate from = ValidationUtil.validateDate(scanner.nextLine(), "From date");
+            System.out.print("To date (dd-MM-yyyy): ");
+            LocalDate to = ValidationUtil.validateDate(scanner.nextLine(), "To date");
+            if (to.isBefore(from)) {
+                throw new InvalidInputException("To date cannot be before from date");
+            }
+            billingService.generateSalesReport(from, to);
+        } catch (InvalidInputException e) {
+            System.out.println("X " + e.getMessage());
+        }
+    }
+
     // Exit application
     private static void exitApplication() {
+        try {
+            persister.shutdown();
+        } catch (IOException e) {
+            System.out.println("X Some changes could not be saved: " + e.getMessage());
+        }
+        billingService.shutdown();
+        inventoryService.shutdown();
+
         System.out.println("\n==================================================================");
         System.out.println("              Thank you for using Retail POS System!              ");
         System.out.println("                           Goodbye!                               ");
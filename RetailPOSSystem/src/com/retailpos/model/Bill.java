@@ -3,16 +3,32 @@ Developer Name : Aryan Pandey
 PRN Number : STT-25128071902
 Responsibility: Model Class - Bill Entity
 Concepts Used : Encapsulation, Inner Class, ArrayList, Constructor Overloading,
-                Getters/Setters, toString(), Date/Time, Object-Oriented Design
+                Getters/Setters, toString(), Date/Time, Object-Oriented Design,
+                Fixed-Point Arithmetic
 */
 
 package com.retailpos.model;
 
+import com.retailpos.render.TextRenderer;
+import com.retailpos.render.TextTemplate;
+import com.retailpos.util.MoneyUtil;
+import com.retailpos.util.RecordTokenizer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-
-// Bill model class representing a billing transaction 
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Bill model class representing a billing transaction.
+// Amounts are whole paise (long). The subtotal moves by one line's total when a line is added or
+// removed, so scanning an item costs the same however long the bill is, and the sums are exact.
+// Tax is kept per slab - one bucket per GST/cess rate on the bill - and only the bucket of the
+// changed line is re-taxed; each bucket's GST and cess are rounded to the nearest paisa.
+// Discounts: a line can carry an offer that takes an amount off that line, and the bill can take a
+// percentage off everything (basket or customer offers). The percentage is taken off each slab, so
+// tax is always charged on the discounted amount.
+// Each product has one line: an index from product ID to its line lets a repeat scan add to that
+// line, and a quantity change or void find it, without walking the bill.
 public class Bill {
 
     // Private fields - Encapsulation
@@ -20,30 +36,82 @@ public class Bill {
     private String customerId;
     private String customerName;
     private ArrayList<BillItem> items;
-    private double subtotal;
-    private double gstAmount;
-    private double totalAmount;
+    private HashMap<String, BillItem> lineByProduct;
+    private long subtotalPaise;
+    private long lineDiscountPaise;
+    private long billDiscountPaise;
+    private long gstPaise;
+    private long cessPaise;
+    private long totalPaise;
+    private int billDiscountPercent;
+    private String billPromotions = "";
     private String billDate;
     private String cashierName;
 
-    // GST percentage
-    private static final double GST_RATE = 0.18; // 18% GST
+    // Tax slabs of the bill: rates and amounts of slab i are at index i of each array
+    private int slabCount;
+    private int[] slabGstPercent = new int[4];
+    private int[] slabCessPercent = new int[4];
+    private long[] slabAmountPaise = new long[4];    // Line totals after line offers
+    private long[] slabDiscountPaise = new long[4];  // Bill discount taken off the slab
+    private long[] slabGstPaise = new long[4];
+    private long[] slabCessPaise = new long[4];
+
+    // GST percentage of items that do not carry their own (and of bills saved before tax slabs)
+    public static final int DEFAULT_GST_PERCENT = 18;
+
+    // Invoice rows, parsed once
+    private static final TextTemplate HEADER_ROW = new TextTemplate("%-16s : %s");
+    private static final TextTemplate ITEM_HEADINGS = new TextTemplate("%-10s %-20s %5s %10s %12s");
+    private static final TextTemplate ITEM_ROW = new TextTemplate("%-10s %-20s %5d %10m %12m");
+    private static final TextTemplate OFFER_ROW = new TextTemplate("             Offer %-30s %12m");
+    private static final TextTemplate TOTAL_ROW = new TextTemplate("%48s : Rs. %10m");
+
+    // Reused tokenizers for fromFileString (one set per thread)
+    private static final ThreadLocal<RecordTokenizer> FIELDS = ThreadLocal.withInitial(() -> new RecordTokenizer('|'));
+    private static final ThreadLocal<RecordTokenizer> ITEMS = ThreadLocal.withInitial(() -> new RecordTokenizer(';'));
+    private static final ThreadLocal<RecordTokenizer> ITEM_FIELDS = ThreadLocal.withInitial(() -> new RecordTokenizer(':'));
 
     // Inner class representing an item in the bill
     public static class BillItem {
         private String productId;
         private String productName;
         private int quantity;
-        private double unitPrice;
-        private double itemTotal;
-
-        // Constructor for BillItem
+        private long unitPricePaise;
+        private long itemTotalPaise;
+        private int gstPercent;
+        private int cessPercent;
+        private long discountPaise;
+        private String promotionId;
+
+        // Constructor for BillItem - the price is rounded to whole paise, taxed at the default GST rate
         public BillItem(String productId, String productName, int quantity, double unitPrice) {
+            this(productId, productName, quantity, MoneyUtil.toPaise(unitPrice));
+        }
+
+        // Constructor for BillItem with the price in paise, taxed at the default GST rate
+        public BillItem(String productId, String productName, int quantity, long unitPricePaise) {
+            this(productId, productName, quantity, unitPricePaise, DEFAULT_GST_PERCENT, 0);
+        }
+
+        // Constructor for BillItem with the price in paise and its GST and cess rates
+        public BillItem(String productId, String productName, int quantity, long unitPricePaise,
+                int gstPercent, int cessPercent) {
+            this(productId, productName, quantity, unitPricePaise, gstPercent, cessPercent, 0, null);
+        }
+
+        // Constructor for BillItem with an offer that takes discountPaise off the line
+        public BillItem(String productId, String productName, int quantity, long unitPricePaise,
+                int gstPercent, int cessPercent, long discountPaise, String promotionId) {
+            this.discountPaise = discountPaise;
+            this.promotionId = promotionId;
             this.productId = productId;
             this.productName = productName;
             this.quantity = quantity;
-            this.unitPrice = unitPrice;
-            this.itemTotal = quantity * unitPrice;
+            this.unitPricePaise = unitPricePaise;
+            this.itemTotalPaise = quantity * unitPricePaise;
+            this.gstPercent = gstPercent;
+            this.cessPercent = cessPercent;
         }
 
         // Getters
@@ -60,31 +128,78 @@ public class Bill {
         }
 
         public double getUnitPrice() {
-            return unitPrice;
+            return MoneyUtil.toRupees(unitPricePaise);
         }
 
         public double getItemTotal() {
-            return itemTotal;
+            return MoneyUtil.toRupees(itemTotalPaise);
+        }
+
+        public long getUnitPricePaise() {
+            return unitPricePaise;
+        }
+
+        public long getItemTotalPaise() {
+            return itemTotalPaise;
+        }
+
+        public int getGstPercent() {
+            return gstPercent;
+        }
+
+        public int getCessPercent() {
+            return cessPercent;
+        }
+
+        public long getDiscountPaise() {
+            return discountPaise;
+        }
+
+        // ID of the offer applied to the line, or null
+        public String getPromotionId() {
+            return promotionId;
+        }
+
+        // Line total after its offer
+        public long getNetTotalPaise() {
+            return itemTotalPaise - discountPaise;
         }
 
         @Override
         public String toString() {
-            return String.format("%-10s %-20s %5d %10.2f %12.2f",
-                    productId, productName, quantity, unitPrice, itemTotal);
+            return String.format("%-10s %-20s %5d %10s %12s",
+                    productId, productName, quantity, MoneyUtil.format(unitPricePaise), MoneyUtil.format(itemTotalPaise));
         }
 
-        // Convert to file string format
+        // Convert to file string format (price in rupees with two decimals)
         public String toFileString() {
-            return productId + ":" + productName + ":" + quantity + ":" + unitPrice;
+            String line = productId + ":" + productName + ":" + quantity + ":" + MoneyUtil.format(unitPricePaise) + ":" +
+                    gstPercent + ":" + cessPercent;
+            return promotionId == null ? line : line + ":" + MoneyUtil.format(discountPaise) + ":" + promotionId;
         }
 
         // Create BillItem from file string
         public static BillItem fromFileString(String str) {
-            String[] parts = str.split(":");
-            if (parts.length >= 4) {
-                return new BillItem(parts[0], parts[1],
-                        Integer.parseInt(parts[2]),
-                        Double.parseDouble(parts[3]));
+            return fromFields(ITEM_FIELDS.get().reset(str));
+        }
+
+        // Create BillItem from a tokenizer positioned on productId:name:qty:price[:gst:cess[:discount:promotionId]]
+        static BillItem fromFields(RecordTokenizer fields) {
+            int fieldCount = fields.fieldCount();
+            if (fieldCount >= 4) {
+                String productId = fields.nextString();
+                String productName = fields.nextString();
+                int quantity = fields.nextInt();
+                long unitPricePaise = MoneyUtil.toPaise(fields.nextDouble());
+                if (fieldCount >= 8) {
+                    return new BillItem(productId, productName, quantity, unitPricePaise,
+                            fields.nextInt(), fields.nextInt(), MoneyUtil.toPaise(fields.nextDouble()), fields.nextString());
+                }
+                if (fieldCount >= 6) {
+                    return new BillItem(productId, productName, quantity, unitPricePaise,
+                            fields.nextInt(), fields.nextInt());
+                }
+                return new BillItem(productId, productName, quantity, unitPricePaise);
             }
             return null;
         }
@@ -92,11 +207,16 @@ public class Bill {
 
     // Default constructor
     public Bill() {
+        this(true);
+    }
+
+    // Bills read back from file get their date from the record, so skip formatting the clock
+    private Bill(boolean stampDate) {
         this.items = new ArrayList<>();
-        this.subtotal = 0.0;
-        this.gstAmount = 0.0;
-        this.totalAmount = 0.0;
-        this.billDate = getCurrentDateTime();
+        this.lineByProduct = new HashMap<>();
+        if (stampDate) {
+            this.billDate = getCurrentDateTime();
+        }
     }
 
     // Parameterized constructor
@@ -106,9 +226,7 @@ public class Bill {
         this.customerName = customerName;
         this.cashierName = cashierName;
         this.items = new ArrayList<>();
-        this.subtotal = 0.0;
-        this.gstAmount = 0.0;
-        this.totalAmount = 0.0;
+        this.lineByProduct = new HashMap<>();
         this.billDate = getCurrentDateTime();
     }
 
@@ -142,15 +260,79 @@ public class Bill {
     }
 
     public double getSubtotal() {
-        return subtotal;
+        return MoneyUtil.toRupees(subtotalPaise);
     }
 
     public double getGstAmount() {
-        return gstAmount;
+        return MoneyUtil.toRupees(gstPaise);
     }
 
     public double getTotalAmount() {
-        return totalAmount;
+        return MoneyUtil.toRupees(totalPaise);
+    }
+
+    public long getSubtotalPaise() {
+        return subtotalPaise;
+    }
+
+    public long getGstPaise() {
+        return gstPaise;
+    }
+
+    public long getCessPaise() {
+        return cessPaise;
+    }
+
+    // Everything taken off the bill - line offers plus the bill discount
+    public long getDiscountPaise() {
+        return lineDiscountPaise + billDiscountPaise;
+    }
+
+    public long getLineDiscountPaise() {
+        return lineDiscountPaise;
+    }
+
+    public long getBillDiscountPaise() {
+        return billDiscountPaise;
+    }
+
+    public int getBillDiscountPercent() {
+        return billDiscountPercent;
+    }
+
+    // IDs of the offers behind the bill discount ("" if none)
+    public String getBillPromotions() {
+        return billPromotions;
+    }
+
+    public long getTotalPaise() {
+        return totalPaise;
+    }
+
+    // Number of tax slabs (distinct GST/cess rates) on the bill
+    public int getSlabCount() {
+        return slabCount;
+    }
+
+    public int getSlabGstPercent(int slab) {
+        return slabGstPercent[slab];
+    }
+
+    public int getSlabCessPercent(int slab) {
+        return slabCessPercent[slab];
+    }
+
+    // Amount of a slab that is taxed - after line offers and the bill discount
+    public long getSlabTaxablePaise(int slab) {
+        return slabAmountPaise[slab] - slabDiscountPaise[slab];
+    }
+
+    public long getSlabGstPaise(int slab) {
+        return slabGstPaise[slab];
+    }
+
+    public long getSlabCessPaise(int slab) {
+        return slabCessPaise[slab];
     }
 
     public String getBillDate() {
@@ -169,27 +351,138 @@ public class Bill {
         this.cashierName = cashierName;
     }
 
-    // Add item to bill
+    // Add item to bill, taxed at the default GST rate
     public void addItem(String productId, String productName, int quantity, double unitPrice) {
-        BillItem item = new BillItem(productId, productName, quantity, unitPrice);
-        items.add(item);
-        calculateTotals();
+        addItem(new BillItem(productId, productName, quantity, unitPrice));
+    }
+
+    // Add item to bill with its GST and cess rates
+    public void addItem(String productId, String productName, int quantity, double unitPrice,
+            int gstPercent, int cessPercent) {
+        addItem(new BillItem(productId, productName, quantity, MoneyUtil.toPaise(unitPrice), gstPercent, cessPercent));
+    }
+
+    // Add BillItem object to bill and return the line it is on. A product already on the bill at the
+    // same price and tax rates is added to its existing line (quantities and offer amounts add up);
+    // at a different price it starts a new line, which repeat scans then add to
+    public BillItem addItem(BillItem item) {
+        BillItem line = lineByProduct.get(item.getProductId());
+        if (line != null && line.unitPricePaise == item.unitPricePaise
+                && line.gstPercent == item.gstPercent && line.cessPercent == item.cessPercent) {
+            updateItem(line, line.quantity + item.quantity, line.discountPaise + item.discountPaise,
+                    line.promotionId != null ? line.promotionId : item.promotionId);
+            return line;
+        }
+        appendLine(item);
+        return item;
+    }
+
+    // Line of a product, or null if it is not on the bill
+    public BillItem getItem(String productId) {
+        return lineByProduct.get(productId);
     }
 
-    // Add BillItem object to bill
-    public void addItem(BillItem item) {
+    // Change the quantity and offer of a line in place; only its tax slab is re-taxed
+    public void updateItem(BillItem line, int quantity, long discountPaise, String promotionId) {
+        addToTotals(line, -1);
+        line.quantity = quantity;
+        line.itemTotalPaise = quantity * line.unitPricePaise;
+        line.discountPaise = discountPaise;
+        line.promotionId = promotionId;
+        addToTotals(line, 1);
+    }
+
+    // Void the line of a product; returns the removed line, or null if the product is not on the bill
+    public BillItem removeItem(String productId) {
+        BillItem line = lineByProduct.get(productId);
+        if (line != null) {
+            removeItem(line);
+        }
+        return line;
+    }
+
+    // Remove a line from the bill; returns false if it is not on the bill
+    public boolean removeItem(BillItem item) {
+        if (!items.remove(item)) {
+            return false;
+        }
+        addToTotals(item, -1);
+        if (lineByProduct.get(item.getProductId()) == item) {
+            // An earlier line of the product (at another price) takes over, if there is one
+            lineByProduct.remove(item.getProductId());
+            for (int i = items.size() - 1; i >= 0; i--) {
+                if (items.get(i).getProductId().equals(item.getProductId())) {
+                    lineByProduct.put(item.getProductId(), items.get(i));
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Add a line as it is, without merging it into an earlier one
+    private void appendLine(BillItem item) {
         items.add(item);
-        calculateTotals();
+        lineByProduct.put(item.getProductId(), item);
+        addToTotals(item, 1);
     }
 
-    // Calculate subtotal, GST and total
-    private void calculateTotals() {
-        subtotal = 0.0;
-        for (BillItem item : items) {
-            subtotal += item.getItemTotal();
+    // Take a percentage off the whole bill; promotions names the offers behind it (for the invoice).
+    // Only the slabs are re-taxed, so this costs the same however many lines the bill has
+    public void setBillDiscount(int percent, String promotions) {
+        billPromotions = promotions == null ? "" : promotions;
+        if (percent != billDiscountPercent) {
+            billDiscountPercent = percent;
+            for (int slab = 0; slab < slabCount; slab++) {
+                retaxSlab(slab);
+            }
         }
-        gstAmount = subtotal * GST_RATE;
-        totalAmount = subtotal + gstAmount;
+    }
+
+    // Move a line into (sign 1) or out of (sign -1) the totals and its tax slab, then re-tax that slab only
+    private void addToTotals(BillItem item, int sign) {
+        int slab = slabOf(item.getGstPercent(), item.getCessPercent());
+        subtotalPaise += sign * item.getItemTotalPaise();
+        lineDiscountPaise += sign * item.getDiscountPaise();
+        slabAmountPaise[slab] += sign * item.getNetTotalPaise();
+        retaxSlab(slab);
+    }
+
+    // Bill discount, GST and cess of one slab, and the bill totals they feed
+    private void retaxSlab(int slab) {
+        billDiscountPaise -= slabDiscountPaise[slab];
+        gstPaise -= slabGstPaise[slab];
+        cessPaise -= slabCessPaise[slab];
+        slabDiscountPaise[slab] = MoneyUtil.percentOf(slabAmountPaise[slab], billDiscountPercent);
+        long taxablePaise = slabAmountPaise[slab] - slabDiscountPaise[slab];
+        slabGstPaise[slab] = MoneyUtil.percentOf(taxablePaise, slabGstPercent[slab]);
+        slabCessPaise[slab] = MoneyUtil.percentOf(taxablePaise, slabCessPercent[slab]);
+        billDiscountPaise += slabDiscountPaise[slab];
+        gstPaise += slabGstPaise[slab];
+        cessPaise += slabCessPaise[slab];
+        totalPaise = subtotalPaise - lineDiscountPaise - billDiscountPaise + gstPaise + cessPaise;
+    }
+
+    // Slab of a GST/cess rate pair, added if the bill has none yet. A bill has a handful of slabs at
+    // most, so a scan of the rate arrays is as quick as any lookup
+    private int slabOf(int gstPercent, int cessPercent) {
+        for (int slab = 0; slab < slabCount; slab++) {
+            if (slabGstPercent[slab] == gstPercent && slabCessPercent[slab] == cessPercent) {
+                return slab;
+            }
+        }
+        if (slabCount == slabGstPercent.length) {
+            int size = slabCount * 2;
+            slabGstPercent = Arrays.copyOf(slabGstPercent, size);
+            slabCessPercent = Arrays.copyOf(slabCessPercent, size);
+            slabAmountPaise = Arrays.copyOf(slabAmountPaise, size);
+            slabDiscountPaise = Arrays.copyOf(slabDiscountPaise, size);
+            slabGstPaise = Arrays.copyOf(slabGstPaise, size);
+            slabCessPaise = Arrays.copyOf(slabCessPaise, size);
+        }
+        slabGstPercent[slabCount] = gstPercent;
+        slabCessPercent[slabCount] = cessPercent;
+        return slabCount++;
     }
 
     // Get current date and time
@@ -199,14 +492,27 @@ public class Bill {
         return now.format(formatter);
     }
 
-    // Get number of items in bill
+    // Get number of items (lines) in bill - repeat scans of a product share a line
     public int getItemCount() {
         return items.size();
     }
 
+    // Get number of units sold on the bill (the quantities of all lines)
+    public int getUnitCount() {
+        int units = 0;
+        for (BillItem item : items) {
+            units += item.getQuantity();
+        }
+        return units;
+    }
+
     // Convert Bill to file format string
     // Format:
     // billId|customerId|customerName|cashierName|billDate|subtotal|gstAmount|totalAmount|items
+    //     [|discount|billDiscountPercent|billPromotions]
+    // The total is after discounts and includes cess; each item is
+    // productId:name:qty:price:gstPercent:cessPercent[:discount:promotionId]. The discount fields are
+    // only written when the bill has a discount
 
     public String toFileString() {
         StringBuilder itemsStr = new StringBuilder();
@@ -217,68 +523,128 @@ public class Bill {
             }
         }
 
-        return billId + "|" + customerId + "|" + customerName + "|" + cashierName + "|" +
-                billDate + "|" + subtotal + "|" + gstAmount + "|" + totalAmount + "|" + itemsStr.toString();
+        String line = billId + "|" + customerId + "|" + customerName + "|" + cashierName + "|" +
+                billDate + "|" + MoneyUtil.format(subtotalPaise) + "|" + MoneyUtil.format(gstPaise) + "|" +
+                MoneyUtil.format(totalPaise) + "|" + itemsStr.toString();
+        if (getDiscountPaise() == 0 && billPromotions.isEmpty()) {
+            return line;
+        }
+        return line + "|" + MoneyUtil.format(getDiscountPaise()) + "|" + billDiscountPercent + "|" + billPromotions;
     }
 
     // Create Bill from file format string
     public static Bill fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length >= 8) {
-            Bill bill = new Bill();
-            bill.setBillId(parts[0]);
-            bill.setCustomerId(parts[1]);
-            bill.setCustomerName(parts[2]);
-            bill.setCashierName(parts[3]);
-            bill.setBillDate(parts[4]);
-            bill.subtotal = Double.parseDouble(parts[5]);
-            bill.gstAmount = Double.parseDouble(parts[6]);
-            bill.totalAmount = Double.parseDouble(parts[7]);
+        return fromFields(FIELDS.get().reset(line));
+    }
+
+    // Create Bill from a tokenizer positioned at the start of a bill record
+    public static Bill fromFields(RecordTokenizer fields) {
+        int fieldCount = fields.fieldCount();
+        if (fieldCount >= 8) {
+            Bill bill = new Bill(false);
+            bill.setBillId(fields.nextString());
+            bill.setCustomerId(fields.nextString());
+            bill.setCustomerName(fields.nextString());
+            bill.setCashierName(fields.nextString());
+            bill.setBillDate(fields.nextString());
+            long subtotalPaise = MoneyUtil.toPaise(fields.nextDouble());
+            long gstPaise = MoneyUtil.toPaise(fields.nextDouble());
+            long totalPaise = MoneyUtil.toPaise(fields.nextDouble());
 
             // Parse items if present
-            if (parts.length > 8 && !parts[8].isEmpty()) {
-                String[] itemsStr = parts[8].split(";");
-                for (String itemStr : itemsStr) {
-                    BillItem item = BillItem.fromFileString(itemStr);
-                    if (item != null) {
-                        bill.items.add(item);
+            if (fieldCount > 8) {
+                RecordTokenizer itemList = ITEMS.get();
+                fields.nextInto(itemList);
+                if (fields.fieldLength() > 0) {
+                    RecordTokenizer itemFields = ITEM_FIELDS.get();
+                    int itemCount = itemList.fieldCount();
+                    for (int i = 0; i < itemCount; i++) {
+                        itemList.nextInto(itemFields);
+                        BillItem item = BillItem.fromFields(itemFields);
+                        if (item != null) {
+                            bill.appendLine(item); // Saved lines stay as they were charged
+                        }
                     }
                 }
             }
 
+            long discountPaise = 0;
+            if (fieldCount > 10) {
+                // The promotions field is empty (so not counted) when only item offers applied
+                discountPaise = MoneyUtil.toPaise(fields.nextDouble());
+                int percent = fields.nextInt();
+                bill.setBillDiscount(percent, fieldCount > 11 ? fields.nextString() : "");
+            }
+
+            // The saved amounts are what was charged; the slabs are rebuilt from the items. Bills saved
+            // before tax slabs have one 18% slab, whose GST is the saved GST however it was rounded then
+            bill.subtotalPaise = subtotalPaise;
+            bill.gstPaise = gstPaise;
+            bill.billDiscountPaise = discountPaise - bill.lineDiscountPaise;
+            bill.cessPaise = totalPaise - subtotalPaise + discountPaise - gstPaise;
+            bill.totalPaise = totalPaise;
+            if (bill.slabCount == 1) {
+                bill.slabGstPaise[0] = gstPaise;
+                bill.slabCessPaise[0] = bill.cessPaise;
+            }
             return bill;
         }
         return null;
     }
 
-    // Display bill invoice
+    // Display bill invoice on the console
     public void displayInvoice() {
-        System.out.println("\n");
-        System.out.println("==================================================================");
-        System.out.println("                        RETAIL POS SYSTEM                         ");
-        System.out.println("                          TAX INVOICE                             ");
-        System.out.println("==================================================================");
-        System.out.println("Bill ID          : " + billId);
-        System.out.println("Date & Time      : " + billDate);
-        System.out.println("Customer ID      : " + customerId);
-        System.out.println("Customer Name    : " + customerName);
-        System.out.println("Cashier          : " + cashierName);
-        System.out.println("==================================================================");
-        System.out.println(String.format("%-10s %-20s %5s %10s %12s",
-                "Product", "Name", "Qty", "Price", "Total"));
-        System.out.println("------------------------------------------------------------------");
+        TextRenderer out = TextRenderer.console();
+        renderInvoice(out);
+        out.flush();
+    }
+
+    // Write the invoice into a renderer (console text, or a fixed-width receipt printer)
+    public void renderInvoice(TextRenderer out) {
+        out.blankLine().blankLine();
+        out.rule('=');
+        out.line("                        RETAIL POS SYSTEM                         ");
+        out.line("                          TAX INVOICE                             ");
+        out.rule('=');
+        out.row(HEADER_ROW).text("Bill ID").text(billId);
+        out.row(HEADER_ROW).text("Date & Time").text(billDate);
+        out.row(HEADER_ROW).text("Customer ID").text(customerId);
+        out.row(HEADER_ROW).text("Customer Name").text(customerName);
+        out.row(HEADER_ROW).text("Cashier").text(cashierName);
+        out.rule('=');
+        out.row(ITEM_HEADINGS).text("Product").text("Name").text("Qty").text("Price").text("Total");
+        out.rule('-');
 
         for (BillItem item : items) {
-            System.out.println(item.toString());
+            out.row(ITEM_ROW).text(item.productId).text(item.productName).number(item.quantity)
+                    .money(item.unitPricePaise).money(item.itemTotalPaise);
+            if (item.discountPaise != 0) {
+                out.row(OFFER_ROW).text(item.promotionId).money(-item.discountPaise);
+            }
         }
 
-        System.out.println("==================================================================");
-        System.out.println(String.format("%48s : Rs. %10.2f", "Subtotal", subtotal));
-        System.out.println(String.format("%48s : Rs. %10.2f", "GST (18%)", gstAmount));
-        System.out.println("------------------------------------------------------------------");
-        System.out.println(String.format("%48s : Rs. %10.2f", "TOTAL AMOUNT", totalAmount));
-        System.out.println("==================================================================");
-        System.out.println("                  Thank you for shopping with us!                 ");
-        System.out.println("==================================================================\n");
+        out.rule('=');
+        out.row(TOTAL_ROW).text("Subtotal").money(subtotalPaise);
+        if (lineDiscountPaise != 0) {
+            out.row(TOTAL_ROW).text("Item offers").money(-lineDiscountPaise);
+        }
+        if (billDiscountPaise != 0) {
+            out.row(TOTAL_ROW).text(out.scratch().append("Discount ").append(billDiscountPercent).append("% (")
+                    .append(billPromotions).append(')')).money(-billDiscountPaise);
+        }
+        for (int slab = 0; slab < slabCount; slab++) {
+            StringBuilder label = out.scratch().append("GST ").append(slabGstPercent[slab]).append("% on Rs. ");
+            out.row(TOTAL_ROW).text(MoneyUtil.appendTo(label, getSlabTaxablePaise(slab))).money(slabGstPaise[slab]);
+            if (slabCessPercent[slab] > 0) {
+                label = out.scratch().append("Cess ").append(slabCessPercent[slab]).append("% on Rs. ");
+                out.row(TOTAL_ROW).text(MoneyUtil.appendTo(label, getSlabTaxablePaise(slab))).money(slabCessPaise[slab]);
+            }
+        }
+        out.rule('-');
+        out.row(TOTAL_ROW).text("TOTAL AMOUNT").money(totalPaise);
+        out.rule('=');
+        out.line("                  Thank you for shopping with us!                 ");
+        out.rule('=');
+        out.blankLine();
     }
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ Concepts Used : Encapsulation, Constructor Overloading, Getters/Setters, toStrin
 
 package com.retailpos.model;
 
+import com.retailpos.render.TextRenderer;
+import com.retailpos.render.TextTemplate;
+import com.retailpos.util.RecordTokenizer;
 import java.util.ArrayList;
 
 // Customer model class representing a customer in the system
@@ -21,6 +24,13 @@ public class Customer {
     private ArrayList<String> purchaseHistory;
     private double totalPurchaseAmount;
 
+    // Listing columns (the same as toString()), parsed once
+    private static final TextTemplate LIST_HEADINGS = new TextTemplate("%-10s %-20s %-15s %-25s %-12s");
+    private static final TextTemplate LIST_ROW = new TextTemplate("%-10s %-20s %-15s %-25s Rs.%-10m");
+
+    // Reused tokenizer for fromFileString (one per thread)
+    private static final ThreadLocal<RecordTokenizer> TOKENIZER = ThreadLocal.withInitial(() -> new RecordTokenizer('|'));
+
     // Default constructor
     public Customer() {
         this.purchaseHistory = new ArrayList<>();
@@ -117,14 +127,15 @@ public class Customer {
 
     // Create Customer object from file format string
     public static Customer fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length >= 4) {
+        RecordTokenizer fields = TOKENIZER.get().reset(line);
+        int fieldCount = fields.fieldCount();
+        if (fieldCount >= 4) {
             Customer customer = new Customer();
-            customer.setCustomerId(parts[0]);
-            customer.setCustomerName(parts[1]);
-            customer.setPhoneNumber(parts[2]);
-            customer.setEmail(parts[3]);
-            customer.setTotalPurchaseAmount(parts.length > 4 ? Double.parseDouble(parts[4]) : 0.0);
+            customer.setCustomerId(fields.nextString());
+            customer.setCustomerName(fields.nextString());
+            customer.setPhoneNumber(fields.nextString());
+            customer.setEmail(fields.nextString());
+            customer.setTotalPurchaseAmount(fieldCount > 4 ? fields.nextDouble() : 0.0);
             return customer;
         }
         return null;
@@ -142,6 +153,16 @@ public class Customer {
         System.out.println("==================================================");
     }
 
+    // Write the headings of a customer listing
+    public static void renderHeadings(TextRenderer out) {
+        out.row(LIST_HEADINGS).text("ID").text("Name").text("Phone").text("Email").text("Total Spent");
+    }
+
+    // Write this customer as a listing row
+    public void renderRow(TextRenderer out) {
+        out.row(LIST_ROW).text(customerId).text(customerName).text(phoneNumber).text(email).money(totalPurchaseAmount);
+    }
+
     @Override
     public String toString() {
         return String.format("%-10s %-20s %-15s %-25s Rs.%-10.2f",
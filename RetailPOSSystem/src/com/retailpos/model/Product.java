@@ -3,11 +3,16 @@ Developer Name : Aryan Pandey
 PRN Number : STT-25128071902
 Responsibility: Model Class - Product Entity
 Concepts Used : Encapsulation, Constructor Overloading, Getters/Setters, toString(),
-                Object-Oriented Design, Data Modeling
+                Object-Oriented Design, Data Modeling, AtomicInteger (compare-and-set)
 */
 
 package com.retailpos.model;
 
+import com.retailpos.render.TextRenderer;
+import com.retailpos.render.TextTemplate;
+import com.retailpos.util.RecordTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
+
 // Product model class representing a product in the inventory
 public class Product {
 
@@ -16,8 +21,21 @@ public class Product {
     private String productName;
     private String category;
     private double price;
-    private int stockQuantity;
+    private final AtomicInteger stockQuantity = new AtomicInteger(); // Changed with compare-and-set
+    private int heldQuantity; // Units held by open bills (guarded by this product's lock)
     private String description;
+    private int reorderLevel = DEFAULT_REORDER_LEVEL; // Low stock below this many units
+    private volatile int taxClass; // Tax rate class of the category, set when the catalog is loaded (not saved)
+
+    // Reorder level of products that do not set their own
+    public static final int DEFAULT_REORDER_LEVEL = 10;
+
+    // Listing columns (the same as toString()), parsed once
+    private static final TextTemplate LIST_HEADINGS = new TextTemplate("%-10s %-20s %-15s %-12s %-10s");
+    private static final TextTemplate LIST_ROW = new TextTemplate("%-10s %-20s %-15s Rs.%-10m %-10d");
+
+    // Reused tokenizer for fromFileString (one per thread)
+    private static final ThreadLocal<RecordTokenizer> TOKENIZER = ThreadLocal.withInitial(() -> new RecordTokenizer('|'));
 
     // Default constructor
     public Product() {
@@ -29,7 +47,7 @@ public class Product {
         this.productName = productName;
         this.category = category;
         this.price = price;
-        this.stockQuantity = stockQuantity;
+        this.stockQuantity.set(stockQuantity);
         this.description = "";
     }
 
@@ -40,7 +58,7 @@ public class Product {
         this.productName = productName;
         this.category = category;
         this.price = price;
-        this.stockQuantity = stockQuantity;
+        this.stockQuantity.set(stockQuantity);
         this.description = description;
     }
 
@@ -78,11 +96,11 @@ public class Product {
     }
 
     public int getStockQuantity() {
-        return stockQuantity;
+        return stockQuantity.get();
     }
 
     public void setStockQuantity(int stockQuantity) {
-        this.stockQuantity = stockQuantity;
+        this.stockQuantity.set(stockQuantity);
     }
 
     public String getDescription() {
@@ -93,43 +111,109 @@ public class Product {
         this.description = description;
     }
 
-    // Reduce stock by specified quantity
-    public void reduceStock(int quantity) {
-        this.stockQuantity -= quantity;
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(int reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public int getTaxClass() {
+        return taxClass;
+    }
+
+    public void setTaxClass(int taxClass) {
+        this.taxClass = taxClass;
+    }
+
+    // Check if available stock is below the reorder level
+    public boolean isLowStock() {
+        return stockQuantity.get() < reorderLevel;
+    }
+
+    // Reduce stock only if the full quantity is available, without locking.
+    // The check and the decrement are one compare-and-set, so concurrent checkouts can never oversell.
+    // Returns the new stock, or -1 if there was not enough
+    public int tryReduceStock(int quantity) {
+        while (true) {
+            int current = stockQuantity.get();
+            if (current < quantity) {
+                return -1;
+            }
+            if (stockQuantity.compareAndSet(current, current - quantity)) {
+                return current - quantity;
+            }
+        }
+    }
+
+    // Add stock by specified quantity, returns the new stock
+    public int addStock(int quantity) {
+        return this.stockQuantity.addAndGet(quantity);
+    }
+
+    // Hold stock for an open bill.
+    // Held units leave the available stock at once but stay on hand until the bill commits them
+    public synchronized boolean holdStock(int quantity) {
+        if (tryReduceStock(quantity) < 0) {
+            return false;
+        }
+        heldQuantity += quantity;
+        return true;
+    }
+
+    // Return held units to the available stock
+    public synchronized void releaseHeldStock(int quantity) {
+        heldQuantity -= quantity;
+        stockQuantity.addAndGet(quantity);
     }
 
-    // Add stock by specified quantity
-    public void addStock(int quantity) {
-        this.stockQuantity += quantity;
+    // Sell held units, returns the new stock on hand
+    public synchronized int commitHeldStock(int quantity) {
+        heldQuantity -= quantity;
+        return stockQuantity.get() + heldQuantity;
+    }
+
+    public synchronized int getHeldQuantity() {
+        return heldQuantity;
+    }
+
+    // Stock on hand - available plus held units (what products.txt records)
+    public synchronized int getOnHandQuantity() {
+        return stockQuantity.get() + heldQuantity;
     }
 
     // Check if product is in stock
     public boolean isInStock() {
-        return stockQuantity > 0;
+        return stockQuantity.get() > 0;
     }
 
     // Check if requested quantity is available
     public boolean hasStock(int requestedQty) {
-        return stockQuantity >= requestedQty;
+        return stockQuantity.get() >= requestedQty;
     }
 
     // Convert Product object to file format string
     public String toFileString() {
         return productId + "|" + productName + "|" + category + "|" +
-                price + "|" + stockQuantity + "|" + description;
+                price + "|" + stockQuantity.get() + "|" + description + "|" + reorderLevel;
     }
 
     // Create Product object from file format string
     public static Product fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length >= 5) {
+        RecordTokenizer fields = TOKENIZER.get().reset(line);
+        int fieldCount = fields.fieldCount();
+        if (fieldCount >= 5) {
             Product product = new Product();
-            product.setProductId(parts[0]);
-            product.setProductName(parts[1]);
-            product.setCategory(parts[2]);
-            product.setPrice(Double.parseDouble(parts[3]));
-            product.setStockQuantity(Integer.parseInt(parts[4]));
-            product.setDescription(parts.length > 5 ? parts[5] : "");
+            product.setProductId(fields.nextString());
+            product.setProductName(fields.nextString());
+            product.setCategory(fields.nextString());
+            product.setPrice(fields.nextDouble());
+            product.setStockQuantity(fields.nextInt());
+            product.setDescription(fieldCount > 5 ? fields.nextString() : "");
+            if (fieldCount > 6) {
+                product.setReorderLevel(fields.nextInt());
+            }
             return product;
         }
         return null;
@@ -142,14 +226,24 @@ public class Product {
         System.out.println("Product Name     : " + productName);
         System.out.println("Category         : " + category);
         System.out.println("Price            : Rs. " + String.format("%.2f", price));
-        System.out.println("Stock Quantity   : " + stockQuantity);
+        System.out.println("Stock Quantity   : " + stockQuantity.get());
         System.out.println("Description      : " + description);
         System.out.println("==================================================");
     }
 
+    // Write the headings of a product listing
+    public static void renderHeadings(TextRenderer out) {
+        out.row(LIST_HEADINGS).text("ID").text("Product Name").text("Category").text("Price").text("Stock");
+    }
+
+    // Write this product as a listing row
+    public void renderRow(TextRenderer out) {
+        out.row(LIST_ROW).text(productId).text(productName).text(category).money(price).number(stockQuantity.get());
+    }
+
     @Override
     public String toString() {
         return String.format("%-10s %-20s %-15s Rs.%-10.2f %-10d",
-                productId, productName, category, price, stockQuantity);
+                productId, productName, category, price, stockQuantity.get());
     }
 }
\ No newline at end of file
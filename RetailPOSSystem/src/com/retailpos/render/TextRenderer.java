@@ -0,0 +1,204 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Rendering - Buffered text output for invoices and listings
+Concepts Used : StringBuilder, ThreadLocal, Enum, Method Chaining, Buffered Output
+*/
+
+package com.retailpos.render;
+
+import com.retailpos.util.MoneyUtil;
+import java.io.PrintStream;
+
+// Writes invoices and listings into one reusable StringBuilder and hands it to the output stream
+// in large chunks, instead of a println (and usually a String.format) per line.
+// Rows follow a TextTemplate and are filled in field by field:
+//     out.row(ITEM_ROW).text(id).text(name).number(qty).money(pricePaise).money(totalPaise);
+// Numbers and amounts are appended as digits straight into the buffer, so a row allocates nothing.
+// Nothing reaches the stream until the buffer is full or flush() is called.
+// Modes:
+//   PLAIN       - screen and receipt text; values longer than their field push the row out (as
+//                 String.format does) and trailing spaces are dropped
+//   FIXED_WIDTH - line printers; every value is cut to its field (fields without a width are
+//                 not) and every line is exactly the printer width, so columns never move
+public class TextRenderer {
+
+    public enum Mode {
+        PLAIN, FIXED_WIDTH
+    }
+
+    // Width of the application's screens and invoices
+    public static final int DEFAULT_WIDTH = 66;
+
+    // Buffered characters that trigger a write to the stream
+    private static final int FLUSH_CHARS = 16 * 1024;
+
+    // Reused console renderer (one per thread)
+    private static final ThreadLocal<TextRenderer> CONSOLE = ThreadLocal.withInitial(
+            () -> new TextRenderer(System.out, Mode.PLAIN, DEFAULT_WIDTH));
+
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 512);
+    private final StringBuilder scratch = new StringBuilder(64);
+    private final Mode mode;
+    private final int width;
+    private PrintStream stream;
+
+    // Row being filled in
+    private TextTemplate template;
+    private int field;
+    private int lineStart;
+
+    // Constructor - output to stream in the given mode; width is the line width of FIXED_WIDTH mode
+    // (and of rule lines in both modes)
+    public TextRenderer(PrintStream stream, Mode mode, int width) {
+        this.stream = stream;
+        this.mode = mode;
+        this.width = width;
+    }
+
+    // The console renderer of this thread, writing to the current System.out
+    public static TextRenderer console() {
+        TextRenderer renderer = CONSOLE.get();
+        renderer.stream = System.out;
+        return renderer;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    // One line of text
+    public TextRenderer line(CharSequence text) {
+        lineStart = buffer.length();
+        buffer.append(text);
+        return endLine();
+    }
+
+    // An empty line
+    public TextRenderer blankLine() {
+        lineStart = buffer.length();
+        return endLine();
+    }
+
+    // A line of c across the full width, e.g. "=====..."
+    public TextRenderer rule(char c) {
+        lineStart = buffer.length();
+        for (int i = 0; i < width; i++) {
+            buffer.append(c);
+        }
+        return endLine();
+    }
+
+    // Start a row; fill its fields in order with text(), number() and money().
+    // The row ends by itself after its last field
+    public TextRenderer row(TextTemplate rowTemplate) {
+        template = rowTemplate;
+        field = 0;
+        lineStart = buffer.length();
+        buffer.append(rowTemplate.getLiteral(0));
+        if (rowTemplate.getFieldCount() == 0) {
+            endLine();
+        }
+        return this;
+    }
+
+    // Next field as text (null prints as "null", like String.format)
+    public TextRenderer text(CharSequence value) {
+        int start = buffer.length();
+        if (value == null) {
+            buffer.append("null");
+        } else {
+            buffer.append(value);
+        }
+        return endField(start);
+    }
+
+    // Next field as a whole number
+    public TextRenderer number(long value) {
+        int start = buffer.length();
+        buffer.append(value);
+        return endField(start);
+    }
+
+    // Next field as an amount in paise, shown as rupees with two decimals
+    public TextRenderer money(long paise) {
+        int start = buffer.length();
+        MoneyUtil.appendTo(buffer, paise);
+        return endField(start);
+    }
+
+    // Next field as an amount in rupees (rounded to the nearest paisa)
+    public TextRenderer money(double rupees) {
+        return money(MoneyUtil.toPaise(rupees));
+    }
+
+    // A cleared builder for putting one field together from pieces (e.g. a label with a number in it);
+    // pass it to text() before asking for it again
+    public StringBuilder scratch() {
+        scratch.setLength(0);
+        return scratch;
+    }
+
+    // Write everything buffered to the stream
+    public void flush() {
+        if (buffer.length() > 0) {
+            stream.print(buffer);
+            buffer.setLength(0);
+        }
+        stream.flush();
+    }
+
+    // Pad or cut the value just appended at start to its field, then add the text that follows it
+    private TextRenderer endField(int start) {
+        int fieldWidth = template.getWidth(field);
+        int length = buffer.length() - start;
+        if (length > fieldWidth && fieldWidth > 0 && mode == Mode.FIXED_WIDTH) {
+            buffer.setLength(start + fieldWidth);
+        } else if (length < fieldWidth) {
+            if (template.isLeftAligned(field)) {
+                for (int i = length; i < fieldWidth; i++) {
+                    buffer.append(' ');
+                }
+            } else {
+                for (int i = length; i < fieldWidth; i++) {
+                    buffer.insert(start, ' ');
+                }
+            }
+        }
+        field++;
+        buffer.append(template.getLiteral(field));
+        if (field == template.getFieldCount()) {
+            template = null;
+            endLine();
+        }
+        return this;
+    }
+
+    // Finish the line in the buffer (trim or pad it for the mode) and write out a full buffer
+    private TextRenderer endLine() {
+        if (mode == Mode.FIXED_WIDTH) {
+            if (buffer.length() - lineStart > width) {
+                buffer.setLength(lineStart + width);
+            }
+            while (buffer.length() - lineStart < width) {
+                buffer.append(' ');
+            }
+        } else {
+            int end = buffer.length();
+            while (end > lineStart && buffer.charAt(end - 1) == ' ') {
+                end--;
+            }
+            buffer.setLength(end);
+        }
+        buffer.append('\n');
+        if (buffer.length() >= FLUSH_CHARS) {
+            stream.print(buffer);
+            buffer.setLength(0);
+        }
+        return this;
+    }
+}
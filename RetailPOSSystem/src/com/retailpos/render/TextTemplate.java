@@ -0,0 +1,101 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Rendering - Row layouts parsed once from a format string
+Concepts Used : Arrays, String Parsing, Immutable Objects, Exception Handling
+*/
+
+package com.retailpos.render;
+
+import java.util.ArrayList;
+
+// The layout of one kind of row, parsed once from a format string like "%-10s %-20s %5d %10m".
+// A field is % with an optional '-' (left-align), a width and a conversion:
+//   s - text, d - whole number, m - amount in paise shown as rupees (1234.50)
+// Everything else is literal text. Rows are then filled in by TextRenderer without String.format.
+public class TextTemplate {
+
+    private final String[] literals; // literals[i] comes before field i; the last one ends the row
+    private final int[] widths;
+    private final boolean[] leftAligned;
+    private final char[] conversions;
+    private final int width;
+
+    // Parse a format string; throws IllegalArgumentException for an unknown conversion
+    public TextTemplate(String format) {
+        ArrayList<String> literalList = new ArrayList<>();
+        ArrayList<int[]> fieldList = new ArrayList<>(); // {width, leftAligned, conversion}
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i < format.length() && format.charAt(i) == '%') {
+                literal.append('%');
+                i++;
+                continue;
+            }
+            boolean left = i < format.length() && format.charAt(i) == '-';
+            if (left) {
+                i++;
+            }
+            int fieldWidth = 0;
+            while (i < format.length() && Character.isDigit(format.charAt(i))) {
+                fieldWidth = fieldWidth * 10 + (format.charAt(i++) - '0');
+            }
+            char conversion = i < format.length() ? format.charAt(i++) : ' ';
+            if (conversion != 's' && conversion != 'd' && conversion != 'm') {
+                throw new IllegalArgumentException("Unsupported field in template: " + format);
+            }
+            literalList.add(literal.toString());
+            literal.setLength(0);
+            fieldList.add(new int[] {fieldWidth, left ? 1 : 0, conversion});
+        }
+        literalList.add(literal.toString());
+
+        literals = literalList.toArray(new String[0]);
+        widths = new int[fieldList.size()];
+        leftAligned = new boolean[fieldList.size()];
+        conversions = new char[fieldList.size()];
+        int total = 0;
+        for (int f = 0; f < fieldList.size(); f++) {
+            widths[f] = fieldList.get(f)[0];
+            leftAligned[f] = fieldList.get(f)[1] == 1;
+            conversions[f] = (char) fieldList.get(f)[2];
+            total += widths[f];
+        }
+        for (String text : literals) {
+            total += text.length();
+        }
+        width = total;
+    }
+
+    public int getFieldCount() {
+        return widths.length;
+    }
+
+    // Literal text before field i (i == getFieldCount() gives the text that ends the row)
+    public String getLiteral(int i) {
+        return literals[i];
+    }
+
+    public int getWidth(int field) {
+        return widths[field];
+    }
+
+    public boolean isLeftAligned(int field) {
+        return leftAligned[field];
+    }
+
+    public char getConversion(int field) {
+        return conversions[field];
+    }
+
+    // Width of a row whose values all fit their fields
+    public int getRowWidth() {
+        return width;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Storage interface for bills
+Concepts Used : Interfaces, Abstraction, Predicate, Iterable, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Bill;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+// Where BillingService keeps its bills.
+// Backends: SegmentedBillStore (daily segment files) and InMemoryBillRepository (no disk).
+// Date ranges are inclusive; null means open-ended.
+public interface BillRepository {
+
+    // Store a completed bill
+    void save(Bill bill) throws IOException;
+
+    // Look up a bill by ID, null if not present
+    Bill getBill(String billId);
+
+    // Bills accepted by the filter (null accepts all) within a date range, oldest first
+    ArrayList<Bill> search(Predicate<Bill> filter, LocalDate from, LocalDate to);
+
+    // Every bill, oldest first
+    Iterable<Bill> bills();
+
+    // Sales totals within a date range
+    SalesSummary summarize(LocalDate from, LocalDate to);
+
+    // Total number of bills
+    int getBillCount();
+
+    // Highest bill number stored (B0042 -> 42)
+    int getMaxBillNumber();
+
+    // Write out pending bills and release files
+    void close() throws IOException;
+}
@@ -0,0 +1,21 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Optional interface for storing single customer changes
+Concepts Used : Interfaces, Abstraction, Collections, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Customer;
+import java.io.IOException;
+import java.util.Collection;
+
+// Implemented by customer repositories that can store new or changed customers on their own,
+// between full saves. BillingService saves through it when its repository has it, and saves
+// every customer with saveAll() on each change when it does not.
+public interface CustomerChangeRecorder {
+
+    // Store only these new or changed customers
+    void saveChanged(Collection<Customer> customers) throws IOException;
+}
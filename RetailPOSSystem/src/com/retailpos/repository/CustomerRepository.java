@@ -0,0 +1,36 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Storage interface for customers
+Concepts Used : Interfaces, Abstraction, Collections, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Customer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+// Where BillingService keeps its customers.
+// Backends: FileCustomerRepository (customers.txt), JournaledCustomerRepository (customers.txt +
+// customer log) and InMemoryCustomerRepository (no disk). Backends that can store single customers
+// between full saves also implement CustomerChangeRecorder.
+public interface CustomerRepository {
+
+    // Load every stored customer
+    ArrayList<Customer> loadAll() throws IOException;
+
+    // Mark the point that the next saveAll() covers.
+    // Called with the caller's data locked, right after taking the snapshot passed to saveAll()
+    void beginSave() throws IOException;
+
+    // Replace the stored customers with a snapshot
+    void saveAll(Collection<Customer> customers) throws IOException;
+
+    // Ask for a full save from time to time (backends without a change log ignore this)
+    void startCompaction(Runnable saveAll);
+
+    // Release files and background threads
+    void close() throws IOException;
+}
@@ -0,0 +1,113 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Products in products.txt with a binary snapshot
+Concepts Used : File Handling, Interfaces, ArrayList, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Product;
+import com.retailpos.storage.BinarySnapshot;
+import com.retailpos.util.FileUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+// Products kept in a text file; every change rewrites the whole file.
+// A binary snapshot next to it is read instead of the text file while it is current.
+public class FileProductRepository implements ProductRepository {
+
+    // First line of a checkpoint written for a journaled repository: the journal generation it covers
+    private static final String GENERATION_PREFIX = "#journal|";
+
+    private final String textPath;
+    private final String snapshotPath;
+
+    // Constructor
+    public FileProductRepository(String textPath, String snapshotPath) {
+        this.textPath = textPath;
+        this.snapshotPath = snapshotPath;
+    }
+
+    // Load from the binary snapshot when it is current, otherwise import the text file
+    @Override
+    public ArrayList<Product> loadAll() throws IOException {
+        if (BinarySnapshot.isCurrent(snapshotPath, textPath)) {
+            try {
+                return BinarySnapshot.readProducts(snapshotPath);
+            } catch (IOException e) {
+                System.err.println("Product snapshot unusable, importing text file: " + e.getMessage());
+            }
+        }
+
+        ArrayList<Product> products = new ArrayList<>();
+        for (String line : FileUtil.readFromFile(textPath)) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            Product product = Product.fromFileString(line);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        saveSnapshot(products);
+        return products;
+    }
+
+    @Override
+    public void beginSave() {
+        // Nothing to mark - each save replaces the whole file
+    }
+
+    // Write the text file, then the snapshot
+    @Override
+    public void saveAll(Collection<Product> products) throws IOException {
+        saveAll(products, -1);
+    }
+
+    // Write the text file recording the journal generation it covers (-1 for none), then the snapshot.
+    // The generation is in the same file as the records, so both are replaced together
+    public void saveAll(Collection<Product> products, long journalGeneration) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        if (journalGeneration >= 0) {
+            lines.add(GENERATION_PREFIX + journalGeneration);
+        }
+        for (Product product : products) {
+            lines.add(product.toFileString());
+        }
+        FileUtil.replaceAllLines(textPath, lines);
+        saveSnapshot(products);
+    }
+
+    // Journal generation the text file covers, or -1 if it names none
+    public long getJournalGeneration() throws IOException {
+        String first = FileUtil.readFirstLine(textPath);
+        if (first == null || !first.startsWith(GENERATION_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(first.substring(GENERATION_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // The snapshot is only a cache of the text file, so failing to write it is not fatal
+    private void saveSnapshot(Collection<Product> products) {
+        try {
+            BinarySnapshot.writeProducts(snapshotPath, products);
+        } catch (IOException e) {
+            System.err.println("Error saving product snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void startCompaction(Runnable saveAll) {
+        // Every change is already a full save
+    }
+
+    @Override
+    public void close() {
+    }
+}
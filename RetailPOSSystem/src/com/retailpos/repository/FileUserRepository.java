@@ -0,0 +1,34 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Login users in users.txt
+Concepts Used : File Handling, Interfaces, String Parsing, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.util.FileUtil;
+import java.io.IOException;
+
+// Users kept in a text file (Username|Password|Role), read on every login
+// so that edits to the file apply without a restart
+public class FileUserRepository implements UserRepository {
+
+    private final String path;
+
+    // Constructor
+    public FileUserRepository(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public String findRole(String username, String password) throws IOException {
+        for (String line : FileUtil.readFromFile(path)) {
+            String[] parts = line.split("\\|");
+            if (parts.length >= 3 && parts[0].equals(username) && parts[1].equals(password)) {
+                return parts[2];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Bills held in memory only
+Concepts Used : Interfaces, ArrayList, HashMap, Predicate
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Bill;
+import com.retailpos.storage.SegmentedBillStore;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Predicate;
+
+// Bills kept in memory only - nothing touches the disk
+public class InMemoryBillRepository implements BillRepository {
+
+    private final ArrayList<Bill> bills = new ArrayList<>();
+    private final HashMap<String, Bill> index = new HashMap<>();
+    private int maxBillNumber;
+
+    @Override
+    public synchronized void save(Bill bill) {
+        bills.add(bill);
+        index.put(bill.getBillId(), bill);
+        maxBillNumber = Math.max(maxBillNumber, SegmentedBillStore.billNumber(bill.getBillId()));
+    }
+
+    @Override
+    public synchronized Bill getBill(String billId) {
+        return index.get(billId);
+    }
+
+    @Override
+    public synchronized ArrayList<Bill> search(Predicate<Bill> filter, LocalDate from, LocalDate to) {
+        int fromKey = from == null ? 0 : SegmentedBillStore.dateKey(from);
+        int toKey = to == null ? Integer.MAX_VALUE : SegmentedBillStore.dateKey(to);
+        ArrayList<Bill> results = new ArrayList<>();
+        for (Bill bill : bills) {
+            int date = SegmentedBillStore.dateKey(bill.getBillDate());
+            if (date >= fromKey && date <= toKey && (filter == null || filter.test(bill))) {
+                results.add(bill);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized Iterable<Bill> bills() {
+        return new ArrayList<>(bills);
+    }
+
+    @Override
+    public SalesSummary summarize(LocalDate from, LocalDate to) {
+        SalesSummary summary = new SalesSummary();
+        for (Bill bill : search(null, from, to)) {
+            summary.add(bill);
+        }
+        return summary;
+    }
+
+    @Override
+    public synchronized int getBillCount() {
+        return bills.size();
+    }
+
+    @Override
+    public synchronized int getMaxBillNumber() {
+        return maxBillNumber;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,71 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Customers held in memory only
+Concepts Used : Interfaces, LinkedHashMap, Defensive Copies
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Customer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+// Customers kept in memory only - nothing touches the disk
+public class InMemoryCustomerRepository implements CustomerRepository, CustomerChangeRecorder {
+
+    private final LinkedHashMap<String, Customer> customers = new LinkedHashMap<>();
+
+    // Constructor - no customers
+    public InMemoryCustomerRepository() {
+    }
+
+    // Constructor - starts with the given customers
+    public InMemoryCustomerRepository(Collection<Customer> initial) {
+        store(initial);
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getCustomerId(), customer.getCustomerName(),
+                customer.getPhoneNumber(), customer.getEmail(), customer.getTotalPurchaseAmount());
+    }
+
+    private void store(Collection<Customer> source) {
+        for (Customer customer : source) {
+            customers.put(customer.getCustomerId(), copyOf(customer));
+        }
+    }
+
+    @Override
+    public synchronized ArrayList<Customer> loadAll() {
+        ArrayList<Customer> result = new ArrayList<>();
+        for (Customer customer : customers.values()) {
+            result.add(copyOf(customer));
+        }
+        return result;
+    }
+
+    @Override
+    public void beginSave() {
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Customer> snapshot) {
+        customers.clear();
+        store(snapshot);
+    }
+
+    @Override
+    public synchronized void saveChanged(Collection<Customer> changed) {
+        store(changed);
+    }
+
+    @Override
+    public void startCompaction(Runnable saveAll) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
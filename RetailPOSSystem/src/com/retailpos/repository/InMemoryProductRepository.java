@@ -0,0 +1,80 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Products held in memory only
+Concepts Used : Interfaces, LinkedHashMap, Defensive Copies
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+// Products kept in memory only - nothing touches the disk.
+// Used to measure business logic without I/O; stored products are copies, so the
+// service's objects are never shared with the repository.
+public class InMemoryProductRepository implements ProductRepository, StockChangeRecorder {
+
+    private final LinkedHashMap<String, Product> products = new LinkedHashMap<>();
+
+    // Constructor - empty catalog
+    public InMemoryProductRepository() {
+    }
+
+    // Constructor - starts with the given products
+    public InMemoryProductRepository(Collection<Product> initial) {
+        store(initial);
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.getProductId(), product.getProductName(), product.getCategory(),
+                product.getPrice(), product.getStockQuantity(), product.getDescription());
+        copy.setReorderLevel(product.getReorderLevel());
+        return copy;
+    }
+
+    private void store(Collection<Product> source) {
+        for (Product product : source) {
+            products.put(product.getProductId(), copyOf(product));
+        }
+    }
+
+    @Override
+    public synchronized ArrayList<Product> loadAll() {
+        ArrayList<Product> result = new ArrayList<>();
+        for (Product product : products.values()) {
+            result.add(copyOf(product));
+        }
+        return result;
+    }
+
+    @Override
+    public void beginSave() {
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Product> snapshot) {
+        products.clear();
+        store(snapshot);
+    }
+
+    @Override
+    public synchronized void recordStockBatch(String[] productIds, int[] deltas, int[] newStocks, int count) {
+        for (int i = 0; i < count; i++) {
+            Product product = products.get(productIds[i]);
+            if (product != null) {
+                product.setStockQuantity(newStocks[i]);
+            }
+        }
+    }
+
+    @Override
+    public void startCompaction(Runnable saveAll) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,30 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Login users held in memory only
+Concepts Used : Interfaces, HashMap
+*/
+
+package com.retailpos.repository;
+
+import java.util.HashMap;
+
+// Users kept in memory only - nothing touches the disk
+public class InMemoryUserRepository implements UserRepository {
+
+    private final HashMap<String, String[]> users = new HashMap<>();
+
+    // Add or replace a user
+    public synchronized void addUser(String username, String password, String role) {
+        users.put(username, new String[] { password, role });
+    }
+
+    @Override
+    public synchronized String findRole(String username, String password) {
+        String[] user = users.get(username);
+        if (user != null && user[0].equals(password)) {
+            return user[1];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Customers checkpointed to customers.txt with an append-only log
+Concepts Used : File Handling, Interfaces, Composition, LinkedHashMap, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Customer;
+import com.retailpos.storage.CustomerLog;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+// Customers checkpointed to a text file, with new and changed customers appended to a log in between.
+// A sale or a registration writes one record instead of rewriting the whole file. Loading replays
+// the log over the checkpoint; a background compactor asks for a new checkpoint once the log grows.
+public class JournaledCustomerRepository implements CustomerRepository, CustomerChangeRecorder {
+
+    // Log compaction settings
+    private static final long COMPACTION_INTERVAL_MS = 30000;
+    private static final int COMPACTION_THRESHOLD = 10000;
+
+    private final FileCustomerRepository checkpoint;
+    private final CustomerLog log;
+    private long coveredGeneration; // Generation the checkpoint being written covers
+
+    // Constructor - opens the log
+    public JournaledCustomerRepository(String textPath, String snapshotPath, String logPath) throws IOException {
+        this.checkpoint = new FileCustomerRepository(textPath, snapshotPath);
+        this.coveredGeneration = checkpoint.getJournalGeneration();
+        this.log = new CustomerLog(logPath, coveredGeneration);
+    }
+
+    // Load the checkpoint and replay the log over it; replayed records are checkpointed at once
+    @Override
+    public ArrayList<Customer> loadAll() throws IOException {
+        LinkedHashMap<String, Customer> customers = new LinkedHashMap<>();
+        for (Customer customer : checkpoint.loadAll()) {
+            customers.put(customer.getCustomerId(), customer);
+        }
+        int replayed = log.replay(customers, checkpoint.getJournalGeneration());
+        ArrayList<Customer> result = new ArrayList<>(customers.values());
+        if (replayed > 0) {
+            beginSave();
+            saveAll(result);
+        }
+        return result;
+    }
+
+    // Start a new log; records written before this are covered by the next saveAll()
+    @Override
+    public void beginSave() throws IOException {
+        coveredGeneration = log.rotate();
+    }
+
+    // Write the checkpoint, then drop the log records it covers
+    @Override
+    public void saveAll(Collection<Customer> customers) throws IOException {
+        checkpoint.saveAll(customers, coveredGeneration);
+        log.discardRotated();
+    }
+
+    @Override
+    public void saveChanged(Collection<Customer> customers) throws IOException {
+        log.append(customers);
+    }
+
+    @Override
+    public void startCompaction(Runnable saveAll) {
+        log.startCompactor(saveAll, COMPACTION_INTERVAL_MS, COMPACTION_THRESHOLD);
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Products checkpointed to products.txt with a stock journal
+Concepts Used : File Handling, Interfaces, Composition, LinkedHashMap, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Product;
+import com.retailpos.storage.StockJournal;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+// Products checkpointed to a text file, with stock changes appended to a journal in between.
+// Loading replays the journal over the checkpoint; a background compactor asks for a new
+// checkpoint once the journal grows.
+public class JournaledProductRepository implements ProductRepository, StockChangeRecorder {
+
+    // Journal compaction settings
+    private static final long COMPACTION_INTERVAL_MS = 5000;
+    private static final int COMPACTION_THRESHOLD = 500;
+
+    private final FileProductRepository checkpoint;
+    private final StockJournal journal;
+    private long coveredGeneration; // Generation the checkpoint being written covers
+
+    // Constructor - opens the journal
+    public JournaledProductRepository(String textPath, String snapshotPath, String journalPath) throws IOException {
+        this.checkpoint = new FileProductRepository(textPath, snapshotPath);
+        this.coveredGeneration = checkpoint.getJournalGeneration();
+        this.journal = new StockJournal(journalPath, coveredGeneration);
+    }
+
+    // Load the checkpoint and replay the journal over it; replayed changes are checkpointed at once
+    @Override
+    public ArrayList<Product> loadAll() throws IOException {
+        LinkedHashMap<String, Product> products = new LinkedHashMap<>();
+        for (Product product : checkpoint.loadAll()) {
+            products.put(product.getProductId(), product);
+        }
+        int replayed = journal.replay(products, checkpoint.getJournalGeneration());
+        ArrayList<Product> result = new ArrayList<>(products.values());
+        if (replayed > 0) {
+            beginSave();
+            saveAll(result);
+        }
+        return result;
+    }
+
+    // Start a new journal; entries written before this are covered by the next saveAll()
+    @Override
+    public void beginSave() throws IOException {
+        coveredGeneration = journal.rotate();
+    }
+
+    // Write the checkpoint, then drop the journal entries it covers
+    @Override
+    public void saveAll(Collection<Product> products) throws IOException {
+        checkpoint.saveAll(products, coveredGeneration);
+        journal.discardRotated();
+    }
+
+    @Override
+    public void recordStockBatch(String[] productIds, int[] deltas, int[] newStocks, int count) throws IOException {
+        journal.appendAll(productIds, deltas, newStocks, count);
+    }
+
+    @Override
+    public void startCompaction(Runnable saveAll) {
+        journal.startCompactor(saveAll, COMPACTION_INTERVAL_MS, COMPACTION_THRESHOLD);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
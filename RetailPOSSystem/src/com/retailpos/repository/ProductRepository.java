@@ -0,0 +1,36 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Storage interface for products
+Concepts Used : Interfaces, Abstraction, Collections, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Product;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+// Where InventoryService keeps its products.
+// Backends: FileProductRepository (products.txt), JournaledProductRepository (products.txt + stock journal)
+// and InMemoryProductRepository (no disk). Backends that can store single stock changes between full
+// saves also implement StockChangeRecorder.
+public interface ProductRepository {
+
+    // Load every stored product
+    ArrayList<Product> loadAll() throws IOException;
+
+    // Mark the point that the next saveAll() covers.
+    // Called with the caller's data locked, right after taking the snapshot passed to saveAll()
+    void beginSave() throws IOException;
+
+    // Replace the stored products with a snapshot
+    void saveAll(Collection<Product> products) throws IOException;
+
+    // Ask for a full save from time to time (backends without a change log ignore this)
+    void startCompaction(Runnable saveAll);
+
+    // Release files and background threads
+    void close() throws IOException;
+}
@@ -0,0 +1,183 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Running sales totals of a set of bills
+Concepts Used : Encapsulation, Aggregation, Fixed-Point Arithmetic, ArrayList, Comparator
+*/
+
+package com.retailpos.repository;
+
+import com.retailpos.model.Bill;
+import com.retailpos.util.MoneyUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+// Bill count, item (line) count, units sold and money totals (whole paise, so exact) of a set of bills,
+// with the discounts given and the taxable amount, GST and cess of each tax slab
+public class SalesSummary {
+
+    // Totals of one GST/cess rate
+    public static class SlabTotal {
+        private final int gstPercent;
+        private final int cessPercent;
+        private long taxablePaise;
+        private long gstPaise;
+        private long cessPaise;
+
+        private SlabTotal(int gstPercent, int cessPercent) {
+            this.gstPercent = gstPercent;
+            this.cessPercent = cessPercent;
+        }
+
+        public int getGstPercent() {
+            return gstPercent;
+        }
+
+        public int getCessPercent() {
+            return cessPercent;
+        }
+
+        public long getTaxablePaise() {
+            return taxablePaise;
+        }
+
+        public long getGstPaise() {
+            return gstPaise;
+        }
+
+        public long getCessPaise() {
+            return cessPaise;
+        }
+    }
+
+    private int billCount;
+    private int itemCount;
+    private int unitCount;
+    private long totalSalesPaise;
+    private long totalGstPaise;
+    private long totalCessPaise;
+    private long totalDiscountPaise;
+    private final ArrayList<SlabTotal> slabs = new ArrayList<>();
+
+    // Constructor - empty totals
+    public SalesSummary() {
+    }
+
+    // Constructor - stored totals (e.g. from a segment manifest); add the slabs with addSlab()
+    public SalesSummary(int billCount, int itemCount, int unitCount, long totalSalesPaise, long totalGstPaise) {
+        this.billCount = billCount;
+        this.itemCount = itemCount;
+        this.unitCount = unitCount;
+        this.totalSalesPaise = totalSalesPaise;
+        this.totalGstPaise = totalGstPaise;
+    }
+
+    // Add one bill
+    public void add(Bill bill) {
+        billCount++;
+        itemCount += bill.getItemCount();
+        unitCount += bill.getUnitCount();
+        totalSalesPaise += bill.getTotalPaise();
+        totalGstPaise += bill.getGstPaise();
+        totalCessPaise += bill.getCessPaise();
+        totalDiscountPaise += bill.getDiscountPaise();
+        for (int slab = 0; slab < bill.getSlabCount(); slab++) {
+            addToSlab(bill.getSlabGstPercent(slab), bill.getSlabCessPercent(slab), bill.getSlabTaxablePaise(slab),
+                    bill.getSlabGstPaise(slab), bill.getSlabCessPaise(slab));
+        }
+    }
+
+    // Add the totals of another summary
+    public void add(SalesSummary other) {
+        billCount += other.billCount;
+        itemCount += other.itemCount;
+        unitCount += other.unitCount;
+        totalSalesPaise += other.totalSalesPaise;
+        totalGstPaise += other.totalGstPaise;
+        totalCessPaise += other.totalCessPaise;
+        totalDiscountPaise += other.totalDiscountPaise;
+        for (SlabTotal slab : other.slabs) {
+            addToSlab(slab.gstPercent, slab.cessPercent, slab.taxablePaise, slab.gstPaise, slab.cessPaise);
+        }
+    }
+
+    // Add stored totals of one slab (e.g. from a segment manifest); its cess counts towards the total cess
+    public void addSlab(int gstPercent, int cessPercent, long taxablePaise, long gstPaise, long cessPaise) {
+        totalCessPaise += cessPaise;
+        addToSlab(gstPercent, cessPercent, taxablePaise, gstPaise, cessPaise);
+    }
+
+    // Add stored discount totals (e.g. from a segment manifest)
+    public void addDiscount(long discountPaise) {
+        totalDiscountPaise += discountPaise;
+    }
+
+    private void addToSlab(int gstPercent, int cessPercent, long taxablePaise, long gstPaise, long cessPaise) {
+        SlabTotal total = null;
+        for (SlabTotal slab : slabs) {
+            if (slab.gstPercent == gstPercent && slab.cessPercent == cessPercent) {
+                total = slab;
+                break;
+            }
+        }
+        if (total == null) {
+            total = new SlabTotal(gstPercent, cessPercent);
+            slabs.add(total);
+        }
+        total.taxablePaise += taxablePaise;
+        total.gstPaise += gstPaise;
+        total.cessPaise += cessPaise;
+    }
+
+    public int getBillCount() {
+        return billCount;
+    }
+
+    // Bill lines; a line holds every scan of one product
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    // Units sold - the quantities of all lines
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public double getTotalSales() {
+        return MoneyUtil.toRupees(totalSalesPaise);
+    }
+
+    public double getTotalGst() {
+        return MoneyUtil.toRupees(totalGstPaise);
+    }
+
+    public long getTotalSalesPaise() {
+        return totalSalesPaise;
+    }
+
+    public long getTotalGstPaise() {
+        return totalGstPaise;
+    }
+
+    public long getTotalCessPaise() {
+        return totalCessPaise;
+    }
+
+    public long getTotalDiscountPaise() {
+        return totalDiscountPaise;
+    }
+
+    // Slab totals, lowest GST rate first
+    public ArrayList<SlabTotal> getSlabs() {
+        ArrayList<SlabTotal> sorted = new ArrayList<>(slabs);
+        Collections.sort(sorted, new Comparator<SlabTotal>() {
+            @Override
+            public int compare(SlabTotal a, SlabTotal b) {
+                int byGst = Integer.compare(a.gstPercent, b.gstPercent);
+                return byGst != 0 ? byGst : Integer.compare(a.cessPercent, b.cessPercent);
+            }
+        });
+        return sorted;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Optional interface for storing stock changes between full saves
+Concepts Used : Interfaces, Abstraction, Arrays, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import java.io.IOException;
+
+// Implemented by product repositories that can store stock changes on their own, between full saves.
+// InventoryService records stock changes through it when its repository has it, and saves the
+// whole catalog with saveAll() on every change when it does not.
+public interface StockChangeRecorder {
+
+    // Store the first count stock changes of the arrays as one write (newStocks are the stocks after the changes)
+    void recordStockBatch(String[] productIds, int[] deltas, int[] newStocks, int count) throws IOException;
+}
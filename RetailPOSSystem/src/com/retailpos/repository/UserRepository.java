@@ -0,0 +1,18 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Repository - Storage interface for login users
+Concepts Used : Interfaces, Abstraction, Exception Handling
+*/
+
+package com.retailpos.repository;
+
+import java.io.IOException;
+
+// Where login users are kept.
+// Backends: FileUserRepository (users.txt) and InMemoryUserRepository (no disk).
+public interface UserRepository {
+
+    // Role of the user with these credentials, or null if they do not match
+    String findRole(String username, String password) throws IOException;
+}
@@ -2,7 +2,7 @@
 Developer Name : Vaibhavi Anand
 PRN Number : STT-25128071922
 Responsibility: Business Logic - Billing Service
-Concepts Used : ArrayList, HashMap, File Handling, Exception Handling, Collections,
+Concepts Used : ArrayList, ConcurrentHashMap, File Handling, Exception Handling, Collections,
                 Business Logic Implementation, Transaction Management
 */
 
@@ -14,87 +14,265 @@ import com.retailpos.model.Product;
 import com.retailpos.exception.ProductNotFoundException;
 import com.retailpos.exception.InsufficientStockException;
 import com.retailpos.exception.InvalidInputException;
+import com.retailpos.render.TextRenderer;
+import com.retailpos.render.TextTemplate;
+import com.retailpos.repository.BillRepository;
+import com.retailpos.repository.CustomerChangeRecorder;
+import com.retailpos.repository.CustomerRepository;
+import com.retailpos.repository.FileCustomerRepository;
+import com.retailpos.repository.SalesSummary;
+import com.retailpos.storage.BillWriter;
+import com.retailpos.storage.SegmentedBillStore;
+import com.retailpos.storage.WriteBehindPersister;
 import com.retailpos.util.FileUtil;
+import com.retailpos.util.MoneyUtil;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 // Service class for billing operation
 public class BillingService {
 
-    private HashMap<String, Customer> customers;
-    private ArrayList<Bill> bills;
-    private InventoryService inventoryService;
+    // Write-behind store name for customers
+    public static final String PERSISTENCE_STORE = "customers";
+
+    // Listing rows, parsed once
+    private static final TextTemplate BILL_HEADINGS = new TextTemplate("%-10s %-10s %-20s %-20s %-15s");
+    private static final TextTemplate BILL_ROW = new TextTemplate("%-10s %-10s %-20s %-20s Rs.%-10m");
+    private static final TextTemplate COUNT_ROW = new TextTemplate("%s: %d");
+
+    // Bill numbers a terminal takes from the shared counter at a time
+    public static final int TERMINAL_BLOCK_SIZE = 100;
+
+    // One billing lane. It takes a block of bill numbers from the shared counter and numbers its bills
+    // from that block, so lanes only meet once per block instead of once per bill. Bill IDs keep the
+    // usual format; bills of different lanes are simply not numbered in the order they were opened.
+    // A terminal is used by one lane (thread) at a time; numbers left in its block when the
+    // application stops are not used
+    public static class Terminal {
+        private final String terminalId;
+        private final SequenceService.Sequence billIds;
+        private final int blockSize;
+        private long nextNumber;
+        private long blockEnd = -1;
+
+        private Terminal(String terminalId, SequenceService.Sequence billIds, int blockSize) {
+            this.terminalId = terminalId;
+            this.billIds = billIds;
+            this.blockSize = blockSize;
+        }
+
+        public String getTerminalId() {
+            return terminalId;
+        }
+
+        // Next bill ID of this terminal
+        private String nextBillId() {
+            if (nextNumber > blockEnd) {
+                nextNumber = billIds.nextBlock(blockSize);
+                blockEnd = nextNumber + blockSize - 1;
+            }
+            return billIds.format(nextNumber++);
+        }
+    }
 
-    // Constructor - loads customers and bills from file
+    // Customers by ID. Read without locking while bills are priced and completed; additions are
+    // made under this service's lock so they stay ordered with full-save snapshots
+    private ConcurrentHashMap<String, Customer> customers;
+    private CustomerRepository customerRepository;
+    private CustomerChangeRecorder customerRecorder; // null if the repository only saves all customers
+    private BillRepository billRepository;
+    private InventoryService inventoryService;
+    private ReservationService reservationService;
+    private PromotionService promotionService;
+    private WriteBehindPersister persister;
+    private final Object saveLock = new Object();
+    private TextRenderer receiptPrinter;
+
+    // Bill and customer ID counters
+    private SequenceService.Sequence billIds;
+    private SequenceService.Sequence customerIds;
+
+    // Constructor - customers from customers.txt, bills in daily segments (every bill synced before the
+    // invoice prints), offers from promotions.txt; IDs come from the inventory's sequences file
     public BillingService(InventoryService inventoryService) {
+        this(inventoryService, new FileCustomerRepository(FileUtil.CUSTOMERS_FILE, FileUtil.CUSTOMERS_SNAPSHOT),
+                openBillSegments(), null, ReservationService.DEFAULT_TTL_MILLIS, inventoryService.getSequenceService(),
+                new PromotionService(FileUtil.PROMOTIONS_FILE));
+    }
+
+    // Constructor - with the given customer and bill repositories. With a persister (may be null), customer
+    // saves happen on its background writer; scanned items stay reserved for reservationTtlMillis, new bill
+    // and customer IDs come from sequences, and scanned items and bills get the offers of promotionService
+    public BillingService(InventoryService inventoryService, CustomerRepository customerRepository,
+            BillRepository billRepository, WriteBehindPersister persister, long reservationTtlMillis,
+            SequenceService sequences, PromotionService promotionService) {
         this.inventoryService = inventoryService;
-        this.customers = new HashMap<>();
-        this.bills = new ArrayList<>();
+        this.promotionService = promotionService;
+        this.reservationService = new ReservationService(inventoryService, reservationTtlMillis);
+        this.customers = new ConcurrentHashMap<>();
+        this.customerRepository = customerRepository;
+        if (customerRepository instanceof CustomerChangeRecorder) {
+            this.customerRecorder = (CustomerChangeRecorder) customerRepository;
+        }
+        this.billRepository = billRepository;
         loadCustomers();
-        loadBills();
+        this.billIds = sequences.sequence("bill", "B", 4, billRepository != null ? billRepository.getMaxBillNumber() : 0);
+        this.customerIds = sequences.sequence("customer", "C", 3, highestCustomerNumber());
+        customerRepository.startCompaction(new Runnable() {
+            @Override
+            public void run() {
+                saveCustomers();
+            }
+        });
+        if (persister != null) {
+            this.persister = persister;
+            persister.register(PERSISTENCE_STORE, new WriteBehindPersister.Flusher() {
+                @Override
+                public void flush(Set<String> dirtyKeys) throws IOException {
+                    writeChangedCustomers(dirtyKeys);
+                }
+            });
+        }
+    }
+
+    // Open the default bill segments - an old single bills.txt is split into segments on first run
+    private static BillRepository openBillSegments() {
+        try {
+            return new SegmentedBillStore(FileUtil.BILL_SEGMENTS_DIR, FileUtil.BILLS_FILE,
+                    BillWriter.Durability.PER_BILL, 0);
+        } catch (IOException e) {
+            System.err.println("Error loading bills: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Write out queued bills, fold logged customer changes into a full save and release the repositories
+    public void shutdown() {
+        reservationService.shutdown();
+        if (customerRecorder != null) {
+            saveCustomers();
+        }
+        try {
+            if (billRepository != null) {
+                billRepository.close();
+                billRepository = null;
+            }
+            customerRepository.close();
+        } catch (IOException e) {
+            System.err.println("Error closing billing storage: " + e.getMessage());
+        }
     }
 
-    // Load customers from file
+    // Load customers from the repository
     private void loadCustomers() {
         try {
-            ArrayList<String> lines = FileUtil.readFromFile(FileUtil.CUSTOMERS_FILE);
-            for (String line : lines) {
-                Customer customer = Customer.fromFileString(line);
-                if (customer != null) {
-                    customers.put(customer.getCustomerId(), customer);
-                }
+            for (Customer customer : customerRepository.loadAll()) {
+                customers.put(customer.getCustomerId(), customer);
             }
         } catch (IOException e) {
             System.err.println("Error loading customers: " + e.getMessage());
         }
     }
 
-    // Save customers to file
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getCustomerId(), customer.getCustomerName(),
+                customer.getPhoneNumber(), customer.getEmail(), customer.getTotalPurchaseAmount());
+    }
+
+    // Save all customers, reporting a failure on the console
     private void saveCustomers() {
         try {
-            ArrayList<String> lines = new ArrayList<>();
-            for (Customer customer : customers.values()) {
-                lines.add(customer.toFileString());
-            }
-            FileUtil.writeAllLines(FileUtil.CUSTOMERS_FILE, lines, false);
+            writeCustomers();
         } catch (IOException e) {
             System.err.println("Error saving customers: " + e.getMessage());
         }
     }
 
-    // Load bills from file
-    private void loadBills() {
-        try {
-            ArrayList<String> lines = FileUtil.readFromFile(FileUtil.BILLS_FILE);
-            for (String line : lines) {
-                Bill bill = Bill.fromFileString(line);
-                if (bill != null) {
-                    bills.add(bill);
+    // Save all customers to the repository.
+    // The snapshot is taken and the repository told where the save starts under one lock, so
+    // changes stored after that point are kept for the next save.
+    private void writeCustomers() throws IOException {
+        synchronized (saveLock) {
+            ArrayList<Customer> snapshot = new ArrayList<>();
+            synchronized (this) {
+                for (Customer customer : customers.values()) {
+                    snapshot.add(copyOf(customer));
                 }
+                customerRepository.beginSave();
             }
-        } catch (IOException e) {
-            System.err.println("Error loading bills: " + e.getMessage());
+            customerRepository.saveAll(snapshot);
         }
     }
 
-    // Save bill to file
-    private void saveBill(Bill bill) {
+    // Save only the given customers, reporting a failure on the console
+    private void saveChangedCustomers(Collection<String> customerIds) {
         try {
-            FileUtil.writeToFile(FileUtil.BILLS_FILE, bill.toFileString(), true);
-            bills.add(bill);
+            writeChangedCustomers(customerIds);
         } catch (IOException e) {
-            System.err.println("Error saving bill: " + e.getMessage());
+            System.err.println("Error saving customers: " + e.getMessage());
+        }
+    }
+
+    // Save only the given customers, or everything if the repository cannot store single records.
+    // Copies are taken under the save lock, so records reach the repository in the order they changed.
+    private void writeChangedCustomers(Collection<String> customerIds) throws IOException {
+        if (customerRecorder == null) {
+            writeCustomers();
+            return;
+        }
+        synchronized (saveLock) {
+            ArrayList<Customer> changed = new ArrayList<>();
+            synchronized (this) {
+                for (String customerId : customerIds) {
+                    Customer customer = customers.get(customerId);
+                    if (customer != null) {
+                        changed.add(copyOf(customer));
+                    }
+                }
+            }
+            customerRecorder.saveChanged(changed);
         }
     }
 
+    // Persist a new or changed customer - now, or on the write-behind writer
+    private void persistCustomer(String customerId) {
+        if (persister != null) {
+            persister.markDirty(PERSISTENCE_STORE, customerId);
+        } else {
+            saveChangedCustomers(Collections.singletonList(customerId));
+        }
+    }
+
+    // Total number of bills
+    public int getBillCount() {
+        return billRepository != null ? billRepository.getBillCount() : 0;
+    }
+
+    // Save bill to the bill repository
+    private void saveBill(Bill bill) throws IOException {
+        if (billRepository == null) {
+            throw new IOException("Bill storage is not open");
+        }
+        billRepository.save(bill);
+    }
+
     // Add new customer
     public void addCustomer(Customer customer) throws InvalidInputException {
-        if (customers.containsKey(customer.getCustomerId())) {
-            throw new InvalidInputException("Customer with ID " + customer.getCustomerId() + " already exists");
+        synchronized (this) {
+            if (customers.containsKey(customer.getCustomerId())) {
+                throw new InvalidInputException("Customer with ID " + customer.getCustomerId() + " already exists");
+            }
+            customers.put(customer.getCustomerId(), customer);
         }
-        customers.put(customer.getCustomerId(), customer);
-        saveCustomers();
+        customerIds.advanceTo(SequenceService.idNumber(customer.getCustomerId()));
+        persistCustomer(customer.getCustomerId());
         System.out.println("✓ Customer added successfully!");
     }
 
@@ -114,20 +292,22 @@ public class BillingService {
             return;
         }
 
-        System.out.println("\n==================================================================");
-        System.out.println("                      CUSTOMER LIST                               ");
-        System.out.println("==================================================================");
-        System.out.println(String.format("%-10s %-20s %-15s %-25s %-12s",
-                "ID", "Name", "Phone", "Email", "Total Spent"));
-        System.out.println("------------------------------------------------------------------");
+        // Rows are buffered and written out in large chunks
+        TextRenderer out = TextRenderer.console();
+        out.blankLine().rule('=');
+        out.line("                      CUSTOMER LIST                               ");
+        out.rule('=');
+        Customer.renderHeadings(out);
+        out.rule('-');
 
         for (Customer customer : customers.values()) {
-            System.out.println(customer.toString());
+            customer.renderRow(out);
         }
 
-        System.out.println("==================================================================");
-        System.out.println("Total Customers: " + customers.size());
-        System.out.println("==================================================================\n");
+        out.rule('=');
+        out.row(COUNT_ROW).text("Total Customers").number(customers.size());
+        out.rule('=').blankLine();
+        out.flush();
     }
 
     // Search customers by name or phone
@@ -153,166 +333,278 @@ public class BillingService {
         return new Bill(billId, customerId, customer.getCustomerName(), cashierName);
     }
 
+    // Open a billing terminal (lane) that numbers its bills from its own block of bill numbers
+    public Terminal openTerminal(String terminalId) {
+        return new Terminal(terminalId, billIds, TERMINAL_BLOCK_SIZE);
+    }
+
+    // Create a new bill numbered by the given terminal
+    public Bill createBill(String customerId, String cashierName, Terminal terminal) throws InvalidInputException {
+        Customer customer = getCustomer(customerId);
+        return new Bill(terminal.nextBillId(), customerId, customer.getCustomerName(), cashierName);
+    }
+
     // Add item to bill
     public void addItemToBill(Bill bill, String productId, int quantity)
             throws ProductNotFoundException, InsufficientStockException {
 
-        // Check stock availability
-        inventoryService.checkStock(productId, quantity);
+        // Reserve the stock until the bill is completed or cancelled
+        Product product = reservationService.reserve(bill, productId, quantity);
 
-        // Get product details
-        Product product = inventoryService.getProduct(productId);
+        // Add item to bill at the tax rates of its category; a repeat scan adds to the product's line
+        TaxService taxService = inventoryService.getTaxService();
+        int taxClass = product.getTaxClass();
+        Bill.BillItem line = bill.addItem(new Bill.BillItem(productId, product.getProductName(), quantity,
+                MoneyUtil.toPaise(product.getPrice()), taxService.getGstPercent(taxClass),
+                taxService.getCessPercent(taxClass)));
 
-        // Add item to bill
-        bill.addItem(productId, product.getProductName(), quantity, product.getPrice());
+        // Item offers go by the whole line, so buy X get Y counts the units of every scan;
+        // basket and loyalty offers follow the subtotal after item offers
+        applyLineOffer(bill, line, product, line.getQuantity());
+        applyBillOffers(bill);
 
         System.out.println("✓ Item added to bill: " + product.getProductName() + " x " + quantity);
     }
 
-    // Complete billing transaction
-    public void completeBilling(Bill bill)
+    // Change the quantity of a product on the bill (0 voids its line).
+    // Extra units are reserved before the line changes, so if they are not in stock the line stays as it was
+    public void changeItemQuantity(Bill bill, String productId, int quantity)
             throws ProductNotFoundException, InsufficientStockException {
+        Bill.BillItem line = bill.getItem(productId);
+        if (line == null) {
+            throw new ProductNotFoundException("Product with ID " + productId + " is not on bill " + bill.getBillId());
+        }
+        if (quantity <= 0) {
+            removeItemFromBill(bill, productId);
+            return;
+        }
 
-        // Reduce stock for all items
-        for (Bill.BillItem item : bill.getItems()) {
-            inventoryService.reduceStock(item.getProductId(), item.getQuantity());
+        int change = quantity - line.getQuantity();
+        Product product;
+        if (change > 0) {
+            product = reservationService.reserve(bill, productId, change);
+        } else {
+            product = inventoryService.getProduct(productId);
+            reservationService.release(bill, productId, -change);
         }
+        applyLineOffer(bill, line, product, quantity);
+        applyBillOffers(bill);
 
-        // Update customer purchase history
+        System.out.println("✓ Quantity updated: " + line.getProductName() + " x " + quantity);
+    }
+
+    // Void the line of a product and return its reserved stock
+    public void removeItemFromBill(Bill bill, String productId) throws ProductNotFoundException {
+        Bill.BillItem line = bill.removeItem(productId);
+        if (line == null) {
+            throw new ProductNotFoundException("Product with ID " + productId + " is not on bill " + bill.getBillId());
+        }
+        reservationService.release(bill, productId, line.getQuantity());
+        applyBillOffers(bill);
+
+        System.out.println("✓ Item removed from bill: " + line.getProductName());
+    }
+
+    // Set a line to quantity units with the best item offer for that many
+    private void applyLineOffer(Bill bill, Bill.BillItem line, Product product, int quantity) {
+        PromotionService.LineDiscount offer = promotionService.lineDiscount(product, quantity, line.getUnitPricePaise());
+        bill.updateItem(line, quantity, offer.getDiscountPaise(), offer.getPromotionId());
+    }
+
+    // Set the bill-level discount from the basket offer its subtotal reaches and its customer's tier offer
+    private void applyBillOffers(Bill bill) {
+        Customer customer = customers.get(bill.getCustomerId());
+        long subtotalPaise = bill.getSubtotalPaise() - bill.getLineDiscountPaise();
+        bill.setBillDiscount(promotionService.billDiscountPercent(customer, subtotalPaise),
+                promotionService.billPromotions(customer, subtotalPaise));
+    }
+
+    // Complete billing transaction.
+    // All lines are sold together or not at all: if any line lacks stock, nothing changes and the
+    // bill stays open with its holds. The bill is written first, while its stock is only claimed; if
+    // that fails the claims are given back, nothing is sold and the IOException is thrown. Then each
+    // other store is written once - the stock changes of all lines as one batch, then the customer.
+    public void completeBilling(Bill bill)
+            throws ProductNotFoundException, InsufficientStockException, IOException {
+
+        Customer customer = customers.get(bill.getCustomerId());
+
+        // Claim the reserved stock of all items, save the bill, then sell the stock
+        ReservationService.Claim claim = reservationService.claim(bill);
+        boolean saved = false;
         try {
-            Customer customer = getCustomer(bill.getCustomerId());
-            customer.addPurchase(bill.getBillId(), bill.getTotalAmount());
-            saveCustomers();
-        } catch (InvalidInputException e) {
-            System.err.println("Error updating customer: " + e.getMessage());
+            saveBill(bill);
+            saved = true;
+        } finally {
+            if (!saved) {
+                reservationService.unclaim(claim);
+            }
         }
+        reservationService.commit(claim);
 
-        // Save bill
-        saveBill(bill);
+        // Update customer purchase history
+        if (customer != null) {
+            synchronized (this) {
+                customer.addPurchase(bill.getBillId(), bill.getTotalAmount());
+            }
+            persistCustomer(customer.getCustomerId());
+        } else {
+            System.err.println("Error updating customer: Customer with ID " + bill.getCustomerId() + " not found");
+        }
 
-        // Display invoice
+        // Display invoice (and print it, if a receipt printer is set)
         bill.displayInvoice();
+        printReceipt(bill);
 
         System.out.println("✓ Transaction completed successfully!");
     }
 
+    // Also print every completed invoice on a receipt printer (or its spool file), fixed width;
+    // null stops printing
+    public void setReceiptPrinter(PrintStream printer) {
+        receiptPrinter = printer != null
+                ? new TextRenderer(printer, TextRenderer.Mode.FIXED_WIDTH, TextRenderer.DEFAULT_WIDTH) : null;
+    }
+
+    // Print a bill's invoice on the receipt printer, one bill at a time
+    private void printReceipt(Bill bill) {
+        TextRenderer printer = receiptPrinter;
+        if (printer != null) {
+            synchronized (printer) {
+                bill.renderInvoice(printer);
+                printer.flush();
+            }
+        }
+    }
+
+    // Cancel an open bill and return its reserved stock
+    public void cancelBilling(Bill bill) {
+        reservationService.release(bill);
+    }
+
     // View all bills
     public void viewAllBills() {
-        if (bills.isEmpty()) {
+        if (getBillCount() == 0) {
             System.out.println("No bills generated yet.");
             return;
         }
 
-        System.out.println("\n==================================================================");
-        System.out.println("                      BILLS HISTORY                               ");
-        System.out.println("==================================================================");
-        System.out.println(String.format("%-10s %-10s %-20s %-20s %-15s",
-                "Bill ID", "Cust ID", "Customer Name", "Date", "Amount"));
-        System.out.println("------------------------------------------------------------------");
-
-        for (Bill bill : bills) {
-            System.out.println(String.format("%-10s %-10s %-20s %-20s Rs.%-10.2f",
-                    bill.getBillId(),
-                    bill.getCustomerId(),
-                    bill.getCustomerName(),
-                    bill.getBillDate(),
-                    bill.getTotalAmount()));
+        // Rows are buffered and written out in large chunks
+        TextRenderer out = TextRenderer.console();
+        out.blankLine().rule('=');
+        out.line("                      BILLS HISTORY                               ");
+        out.rule('=');
+        out.row(BILL_HEADINGS).text("Bill ID").text("Cust ID").text("Customer Name").text("Date").text("Amount");
+        out.rule('-');
+
+        for (Bill bill : billRepository.bills()) {
+            out.row(BILL_ROW).text(bill.getBillId()).text(bill.getCustomerId()).text(bill.getCustomerName())
+                    .text(bill.getBillDate()).money(bill.getTotalPaise());
         }
 
-        System.out.println("==================================================================");
-        System.out.println("Total Bills: " + bills.size());
-        System.out.println("==================================================================\n");
+        out.rule('=');
+        out.row(COUNT_ROW).text("Total Bills").number(getBillCount());
+        out.rule('=').blankLine();
+        out.flush();
     }
 
     // Search bills by customer ID or bill ID
     public ArrayList<Bill> searchBills(String searchTerm) {
-        ArrayList<Bill> results = new ArrayList<>();
-        String lowerSearchTerm = searchTerm.toLowerCase();
+        return searchBills(searchTerm, null, null);
+    }
 
-        for (Bill bill : bills) {
-            if (bill.getBillId().toLowerCase().contains(lowerSearchTerm) ||
-                    bill.getCustomerId().toLowerCase().contains(lowerSearchTerm) ||
-                    bill.getCustomerName().toLowerCase().contains(lowerSearchTerm)) {
-                results.add(bill);
-            }
+    // Search bills by customer ID or bill ID between two dates (inclusive, null for open)
+    // With segmented storage, only segments whose date range overlaps are read
+    public ArrayList<Bill> searchBills(String searchTerm, LocalDate from, LocalDate to) {
+        if (billRepository == null) {
+            return new ArrayList<>();
         }
-
-        return results;
+        String lowerSearchTerm = searchTerm.toLowerCase();
+        Predicate<Bill> matches = bill -> bill.getBillId().toLowerCase().contains(lowerSearchTerm) ||
+                bill.getCustomerId().toLowerCase().contains(lowerSearchTerm) ||
+                bill.getCustomerName().toLowerCase().contains(lowerSearchTerm);
+        return billRepository.search(matches, from, to);
     }
 
-    // Get bill by ID
+    // Get bill by ID - with segmented storage, only segments whose bill number range covers the ID are read
     public Bill getBill(String billId) throws InvalidInputException {
-        for (Bill bill : bills) {
-            if (bill.getBillId().equals(billId)) {
-                return bill;
-            }
+        Bill bill = billRepository != null ? billRepository.getBill(billId) : null;
+        if (bill == null) {
+            throw new InvalidInputException("Bill with ID " + billId + " not found");
         }
-        throw new InvalidInputException("Bill with ID " + billId + " not found");
+        return bill;
     }
 
-    // Generate sales report
+    // Generate sales report - totals come from the segment manifest
     public void generateSalesReport() {
-        if (bills.isEmpty()) {
+        generateSalesReport(null, null);
+    }
+
+    // Generate sales report between two dates (inclusive, null for open)
+    // With segmented storage, segments entirely inside the range use their manifest totals
+    public void generateSalesReport(LocalDate from, LocalDate to) {
+        SalesSummary summary = billRepository != null ? billRepository.summarize(from, to) : new SalesSummary();
+        int billCount = summary.getBillCount();
+        if (billCount == 0) {
             System.out.println("No sales data available.");
             return;
         }
 
-        double totalSales = 0.0;
-        double totalGST = 0.0;
-        int totalItems = 0;
-
-        for (Bill bill : bills) {
-            totalSales += bill.getTotalAmount();
-            totalGST += bill.getGstAmount();
-            totalItems += bill.getItemCount();
-        }
+        // Totals are exact paise; the average is rounded to the nearest paisa
+        long totalSales = summary.getTotalSalesPaise();
+        long totalGST = summary.getTotalGstPaise();
+        long totalCess = summary.getTotalCessPaise();
+        long totalDiscount = summary.getTotalDiscountPaise();
+        long averageBill = (totalSales + billCount / 2) / billCount;
+        int totalItems = summary.getUnitCount(); // Units, however many lines they were billed on
 
         System.out.println("\n==================================================================");
         System.out.println("                      SALES REPORT                                ");
         System.out.println("==================================================================");
-        System.out.println("Total Bills Generated    : " + bills.size());
+        if (from != null || to != null) {
+            System.out.println("Period                   : " + (from != null ? from : "start") +
+                    " to " + (to != null ? to : "today"));
+        }
+        System.out.println("Total Bills Generated    : " + billCount);
         System.out.println("Total Items Sold         : " + totalItems);
-        System.out.println("Total Sales (incl GST)   : Rs. " + String.format("%.2f", totalSales));
-        System.out.println("Total GST Collected      : Rs. " + String.format("%.2f", totalGST));
-        System.out.println("Total Sales (excl GST)   : Rs. " + String.format("%.2f", (totalSales - totalGST)));
-        System.out.println("Average Bill Amount      : Rs. " + String.format("%.2f", (totalSales / bills.size())));
+        System.out.println("Total Sales (incl GST)   : Rs. " + MoneyUtil.format(totalSales));
+        System.out.println("Total GST Collected      : Rs. " + MoneyUtil.format(totalGST));
+        if (totalCess != 0) {
+            System.out.println("Total Cess Collected     : Rs. " + MoneyUtil.format(totalCess));
+        }
+        System.out.println("Total Sales (excl GST)   : Rs. " + MoneyUtil.format(totalSales - totalGST - totalCess));
+        if (totalDiscount != 0) {
+            System.out.println("Total Discounts Given    : Rs. " + MoneyUtil.format(totalDiscount));
+        }
+        System.out.println("Average Bill Amount      : Rs. " + MoneyUtil.format(averageBill));
+        System.out.println("------------------------------------------------------------------");
+        System.out.println(String.format("%-12s %18s %16s %16s", "Tax Slab", "Taxable", "GST", "Cess"));
+        for (SalesSummary.SlabTotal slab : summary.getSlabs()) {
+            String rate = "GST " + slab.getGstPercent() + "%" +
+                    (slab.getCessPercent() > 0 ? " +" + slab.getCessPercent() + "%" : "");
+            System.out.println(String.format("%-12s %18s %16s %16s", rate, MoneyUtil.format(slab.getTaxablePaise()),
+                    MoneyUtil.format(slab.getGstPaise()), MoneyUtil.format(slab.getCessPaise())));
+        }
         System.out.println("==================================================================\n");
     }
 
-    // Generate next bill ID
+    // Generate next bill ID - unique even when several tills open bills at once
     private String generateNextBillId() {
-        int maxId = 0;
-
-        for (Bill bill : bills) {
-            try {
-                int id = Integer.parseInt(bill.getBillId().substring(1));
-                if (id > maxId) {
-                    maxId = id;
-                }
-            } catch (NumberFormatException e) {
-                // Ignore invalid IDs
-            }
-        }
-
-        return String.format("B%04d", maxId + 1);
+        return billIds.nextId();
     }
 
     // Generate next customer ID
     public String generateNextCustomerId() {
-        int maxId = 0;
+        return customerIds.nextId();
+    }
 
+    // Highest number among the loaded customer IDs - seeds the customer ID counter
+    private long highestCustomerNumber() {
+        long maxId = 0;
         for (String customerId : customers.keySet()) {
-            try {
-                int id = Integer.parseInt(customerId.substring(1));
-                if (id > maxId) {
-                    maxId = id;
-                }
-            } catch (NumberFormatException e) {
-                // Ignore invalid IDs
-            }
+            maxId = Math.max(maxId, SequenceService.idNumber(customerId));
         }
-
-        return String.format("C%03d", maxId + 1);
+        return maxId;
     }
 
     // Check if customer exists
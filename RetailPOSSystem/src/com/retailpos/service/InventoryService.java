@@ -3,7 +3,7 @@ Developer Name : Vaibhavi Anand
 PRN Number : STT-25128071922
 Responsibility: Business Logic - Inventory Management Service
 Concepts Used : ArrayList, HashMap, File Handling, Exception Handling, Collections,
-                Business Logic Implementation, CRUD Operations
+                Business Logic Implementation, CRUD Operations, ConcurrentHashMap
 */
 
 package com.retailpos.service;
@@ -12,57 +12,327 @@ import com.retailpos.model.Product;
 import com.retailpos.exception.ProductNotFoundException;
 import com.retailpos.exception.InsufficientStockException;
 import com.retailpos.exception.InvalidInputException;
+import com.retailpos.index.CategoryPriceIndex;
+import com.retailpos.index.FuzzyWordIndex;
+import com.retailpos.index.InventoryValuation;
+import com.retailpos.index.TrigramIndex;
+import com.retailpos.render.TextRenderer;
+import com.retailpos.render.TextTemplate;
+import com.retailpos.repository.FileProductRepository;
+import com.retailpos.repository.ProductRepository;
+import com.retailpos.repository.StockChangeRecorder;
+import com.retailpos.storage.WriteBehindPersister;
 import com.retailpos.util.FileUtil;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 // Service class for inventory management
 public class InventoryService {
 
-    private HashMap<String, Product> inventory;
+    // Told when a product's available stock falls below its reorder level, and when it gets back up.
+    // Called on the thread that changed the stock, so it should return quickly
+    public interface StockLevelListener {
+        void stockLow(Product product);
 
-    // Constructor - loads inventory from file
+        void stockRestored(Product product);
+    }
+
+    // Write-behind store name, and the key that marks a catalog change needing a full save
+    public static final String PERSISTENCE_STORE = "products";
+    private static final String CATALOG_KEY = "*";
+
+    // Count line under a listing
+    private static final TextTemplate COUNT_ROW = new TextTemplate("%s: %d");
+
+    // Typo-tolerant search returns at most this many products, found within this time
+    private static final int FUZZY_MAX_RESULTS = 10;
+    private static final long FUZZY_BUDGET_NANOS = 20_000_000L;
+
+    // Stock changes do not lock the service: each product's stock is an atomic counter, so
+    // checkouts of different products never wait on each other
+    private ConcurrentHashMap<String, Product> inventory;
+    private ProductRepository repository;
+    private StockChangeRecorder stockRecorder; // null if the repository only saves whole catalogs
+    private final Object checkpointLock = new Object();
+
+    // Name, category and ID of every product, for searchProducts()
+    private final TrigramIndex searchIndex = new TrigramIndex();
+    private final FuzzyWordIndex nameIndex = new FuzzyWordIndex();
+
+    // Category and price of every product, for browsing by category and price range
+    private final CategoryPriceIndex catalogIndex = new CategoryPriceIndex();
+
+    // A product on the low-stock watchlist and how far below its reorder level it was at its last change
+    private static class Shortfall {
+        final String productId;
+        final int units;
+
+        Shortfall(String productId, int units) {
+            this.productId = productId;
+            this.units = units;
+        }
+    }
+
+    // Low-stock watchlist - products below their reorder level, updated on every stock change and kept
+    // ordered by shortfall (furthest below first), so reading it needs no sort
+    private final ConcurrentHashMap<String, Shortfall> lowStock = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Shortfall> lowStockOrder = new ConcurrentSkipListSet<>(
+            new Comparator<Shortfall>() {
+                @Override
+                public int compare(Shortfall a, Shortfall b) {
+                    int byUnits = Integer.compare(b.units, a.units);
+                    return byUnits != 0 ? byUnits : a.productId.compareTo(b.productId);
+                }
+            });
+    private final CopyOnWriteArrayList<StockLevelListener> stockLevelListeners = new CopyOnWriteArrayList<>();
+
+    // Running stock value (on-hand stock x price), updated with the watchlist
+    private final InventoryValuation valuation = new InventoryValuation();
+
+    // Held while stock levels are read and handed to the repository, so journal records
+    // and full-save snapshots are written in the order the changes happened
+    private final Object journalLock = new Object();
+
+    // Stock changes not yet handed to the repository
+    private WriteBehindPersister persister;
+    private ConcurrentHashMap<String, Integer> pendingDeltas = new ConcurrentHashMap<>();
+
+    // ID counters (shared with BillingService) and the product ID counter
+    private final SequenceService sequences;
+    private SequenceService.Sequence productIds;
+
+    // GST and cess rates per category
+    private TaxService taxService;
+
+    // Constructor - loads inventory from products.txt, with the sequences and tax rates files of data/
     public InventoryService() {
-        this.inventory = new HashMap<>();
+        this(new FileProductRepository(FileUtil.PRODUCTS_FILE, FileUtil.PRODUCTS_SNAPSHOT), null,
+                new SequenceService(FileUtil.SEQUENCES_FILE), new TaxService(FileUtil.TAX_RATES_FILE));
+    }
+
+    // Constructor - loads inventory from the given repository. With a persister (may be null), saves happen
+    // on its background writer instead of the caller's thread; new product IDs come from sequences, and
+    // products are taxed at the rates taxService gives their category
+    public InventoryService(ProductRepository repository, WriteBehindPersister persister, SequenceService sequences,
+            TaxService taxService) {
+        this.inventory = new ConcurrentHashMap<>();
+        this.repository = repository;
+        this.sequences = sequences;
+        if (repository instanceof StockChangeRecorder) {
+            this.stockRecorder = (StockChangeRecorder) repository;
+        }
+        this.taxService = taxService;
         loadInventory();
+        this.productIds = sequences.sequence("product", "P", 3, highestProductNumber());
+        repository.startCompaction(new Runnable() {
+            @Override
+            public void run() {
+                saveInventory();
+            }
+        });
+        if (persister != null) {
+            this.persister = persister;
+            persister.register(PERSISTENCE_STORE, new WriteBehindPersister.Flusher() {
+                @Override
+                public void flush(Set<String> dirtyKeys) throws IOException {
+                    flushDirty(dirtyKeys);
+                }
+            });
+        }
     }
 
-    // Load inventory from file
+    // Load inventory from the repository
     private void loadInventory() {
         try {
-            ArrayList<String> lines = FileUtil.readFromFile(FileUtil.PRODUCTS_FILE);
-            for (String line : lines) {
-                Product product = Product.fromFileString(line);
-                if (product != null) {
-                    inventory.put(product.getProductId(), product);
-                }
+            for (Product product : repository.loadAll()) {
+                product.setTaxClass(taxService.classOf(product.getCategory()));
+                inventory.put(product.getProductId(), product);
+                indexProduct(product);
             }
         } catch (IOException e) {
             System.err.println("Error loading inventory: " + e.getMessage());
         }
     }
 
-    // Save inventory to file
+    // Save the whole inventory, reporting a failure on the console
     private void saveInventory() {
         try {
-            ArrayList<String> lines = new ArrayList<>();
-            for (Product product : inventory.values()) {
-                lines.add(product.toFileString());
-            }
-            FileUtil.writeAllLines(FileUtil.PRODUCTS_FILE, lines, false);
+            writeInventory();
         } catch (IOException e) {
             System.err.println("Error saving inventory: " + e.getMessage());
         }
     }
 
+    // Save the whole inventory.
+    // The snapshot is taken and the repository told where the save starts under one lock, so
+    // stock changes recorded after that point are kept for the next save. Stock changes noted
+    // before the snapshot are covered by it; they are dropped only once the save succeeds.
+    private void writeInventory() throws IOException {
+        synchronized (checkpointLock) {
+            ArrayList<Product> snapshot = new ArrayList<>();
+            HashMap<String, Integer> covered = new HashMap<>();
+            try {
+                synchronized (journalLock) {
+                    takePendingDeltas(pendingDeltas.keySet(), covered);
+                    for (Product product : inventory.values()) {
+                        snapshot.add(copyOf(product));
+                    }
+                    repository.beginSave();
+                }
+                repository.saveAll(snapshot);
+            } catch (IOException | RuntimeException e) {
+                restorePendingDeltas(covered);
+                throw e;
+            }
+        }
+    }
+
+    // Move the noted stock changes of some products out of pendingDeltas into taken
+    private void takePendingDeltas(Collection<String> productIds, Map<String, Integer> taken) {
+        for (String productId : new ArrayList<>(productIds)) {
+            Integer delta = pendingDeltas.remove(productId);
+            if (delta != null) {
+                taken.merge(productId, delta, Integer::sum);
+            }
+        }
+    }
+
+    // Put back stock changes that could not be written, so the write-behind writer's retry finds them
+    private void restorePendingDeltas(Map<String, Integer> taken) {
+        for (Map.Entry<String, Integer> entry : taken.entrySet()) {
+            pendingDeltas.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.getProductId(), product.getProductName(), product.getCategory(),
+                product.getPrice(), product.getOnHandQuantity(), product.getDescription());
+        copy.setReorderLevel(product.getReorderLevel());
+        return copy;
+    }
+
+    // Persist a single stock change
+    private void recordStockChange(String productId, int delta) {
+        noteStockChange(productId, delta);
+        persistStockChanges(Collections.singleton(productId));
+    }
+
+    // Note a stock change for the next persistStockChanges() of its product
+    private void noteStockChange(String productId, int delta) {
+        if (stockRecorder != null) {
+            pendingDeltas.merge(productId, delta, Integer::sum);
+        }
+    }
+
+    // Persist the noted stock changes of some products as one repository write.
+    // With write-behind the products are handed to the background writer instead;
+    // without it the changes are recorded (or the inventory saved) before returning.
+    private void persistStockChanges(Set<String> productIds) {
+        if (stockRecorder == null) {
+            saveCatalog();
+            return;
+        }
+        if (persister != null) {
+            for (String productId : productIds) {
+                markDirty(productId);
+            }
+            return;
+        }
+        try {
+            flushDirty(productIds);
+        } catch (IOException e) {
+            System.err.println("Error recording stock change: " + e.getMessage());
+        }
+    }
+
+    // Hand a changed product to the write-behind writer (blocks while the writer's queue is full)
+    private void markDirty(String key) {
+        if (persister != null) {
+            persister.markDirty(PERSISTENCE_STORE, key);
+        }
+    }
+
+    // Save a catalog change (add/update/delete) - now, or on the write-behind writer
+    private void saveCatalog() {
+        if (persister != null) {
+            markDirty(CATALOG_KEY);
+        } else {
+            saveInventory();
+        }
+    }
+
+    // Write-behind flusher - record the net change of each dirty product, or save everything
+    private void flushDirty(Set<String> dirtyKeys) throws IOException {
+        if (stockRecorder == null || dirtyKeys.contains(CATALOG_KEY)) {
+            // The full save covers the noted deltas; a failure goes back to the write-behind
+            // writer, which keeps the keys dirty, with the deltas still noted
+            writeInventory();
+            return;
+        }
+
+        // Reading the stock and recording it under the journal lock keeps records in stock order
+        // and keeps a concurrent full save from landing in between
+        synchronized (journalLock) {
+            HashMap<String, Integer> taken = new HashMap<>();
+            takePendingDeltas(dirtyKeys, taken);
+            String[] productIds = new String[taken.size()];
+            int[] deltas = new int[productIds.length];
+            int[] stocks = new int[productIds.length];
+            int count = 0;
+            for (Map.Entry<String, Integer> entry : taken.entrySet()) {
+                Product product = inventory.get(entry.getKey());
+                if (product != null) {
+                    productIds[count] = entry.getKey();
+                    deltas[count] = entry.getValue();
+                    stocks[count] = product.getOnHandQuantity();
+                    count++;
+                }
+            }
+            if (count > 0) {
+                try {
+                    stockRecorder.recordStockBatch(productIds, deltas, stocks, count);
+                } catch (IOException | RuntimeException e) {
+                    restorePendingDeltas(taken); // Recorded again when the writer retries these keys
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Fold recorded stock changes into a full save and release the repository
+    public void shutdown() {
+        if (stockRecorder != null) {
+            saveInventory();
+        }
+        try {
+            repository.close();
+        } catch (IOException e) {
+            System.err.println("Error closing product storage: " + e.getMessage());
+        }
+    }
+
     // Add new product to inventory
     public void addProduct(Product product) throws InvalidInputException {
-        if (inventory.containsKey(product.getProductId())) {
+        product.setTaxClass(taxService.classOf(product.getCategory()));
+        if (inventory.putIfAbsent(product.getProductId(), product) != null) {
             throw new InvalidInputException("Product with ID " + product.getProductId() + " already exists");
         }
-        inventory.put(product.getProductId(), product);
-        saveInventory();
+        productIds.advanceTo(SequenceService.idNumber(product.getProductId()));
+        indexProduct(product);
+        saveCatalog();
         System.out.println("✓ Product added successfully!");
     }
 
@@ -75,23 +345,54 @@ public class InventoryService {
         return product;
     }
 
-    // Update existing product
-    public void updateProduct(String productId, Product updatedProduct) throws ProductNotFoundException {
-        if (!inventory.containsKey(productId)) {
-            throw new ProductNotFoundException("Product with ID " + productId + " not found");
+    // Update existing product with the details of updatedProduct, and change its stock on hand by stockDelta.
+    // The stored product is changed in place, never swapped for another object, and the stock edit is
+    // applied as a change under the product's lock - units sold or held by open bills while the edit
+    // screen was open are kept
+    public void updateProduct(String productId, Product updatedProduct, int stockDelta)
+            throws ProductNotFoundException, InvalidInputException {
+        Product product = getProduct(productId);
+        synchronized (product) {
+            if (stockDelta < 0 && product.tryReduceStock(-stockDelta) < 0) {
+                throw new InvalidInputException("Cannot remove " + (-stockDelta) + " units. Only "
+                        + product.getStockQuantity() + " units available");
+            }
+            if (stockDelta > 0) {
+                product.addStock(stockDelta);
+            }
+            if (product != updatedProduct) {
+                product.setProductName(updatedProduct.getProductName());
+                product.setCategory(updatedProduct.getCategory());
+                product.setPrice(updatedProduct.getPrice());
+                product.setDescription(updatedProduct.getDescription());
+                product.setReorderLevel(updatedProduct.getReorderLevel());
+            }
         }
-        inventory.put(productId, updatedProduct);
-        saveInventory();
+        product.setTaxClass(taxService.classOf(product.getCategory()));
+        indexProduct(product);
+        saveCatalog();
         System.out.println("✓ Product updated successfully!");
     }
 
-    // Delete product from inventory
+    // Delete product from inventory.
+    // Removed under the product's lock, like stockChanged() updates it, so a stock change running
+    // at the same time cannot put the product back on the watchlist or the valuation afterwards
     public void deleteProduct(String productId) throws ProductNotFoundException {
-        if (!inventory.containsKey(productId)) {
-            throw new ProductNotFoundException("Product with ID " + productId + " not found");
+        Product product = getProduct(productId);
+        synchronized (product) {
+            if (!inventory.remove(productId, product)) {
+                throw new ProductNotFoundException("Product with ID " + productId + " not found");
+            }
+            Shortfall shortfall = lowStock.remove(productId);
+            if (shortfall != null) {
+                lowStockOrder.remove(shortfall);
+            }
+            valuation.remove(productId);
         }
-        inventory.remove(productId);
-        saveInventory();
+        searchIndex.remove(productId);
+        nameIndex.remove(productId);
+        catalogIndex.remove(productId);
+        saveCatalog();
         System.out.println("✓ Product deleted successfully!");
     }
 
@@ -102,31 +403,46 @@ public class InventoryService {
             return;
         }
 
-        System.out.println("\n==================================================================");
-        System.out.println("                      INVENTORY LIST                              ");
-        System.out.println("==================================================================");
-        System.out.println(String.format("%-10s %-20s %-15s %-12s %-10s",
-                "ID", "Product Name", "Category", "Price", "Stock"));
-        System.out.println("------------------------------------------------------------------");
+        // Rows are buffered and written out in large chunks
+        TextRenderer out = TextRenderer.console();
+        out.blankLine().rule('=');
+        out.line("                      INVENTORY LIST                              ");
+        out.rule('=');
+        Product.renderHeadings(out);
+        out.rule('-');
 
         for (Product product : inventory.values()) {
-            System.out.println(product.toString());
+            product.renderRow(out);
         }
 
-        System.out.println("==================================================================");
-        System.out.println("Total Products: " + inventory.size());
-        System.out.println("==================================================================\n");
+        out.rule('=');
+        out.row(COUNT_ROW).text("Total Products").number(inventory.size());
+        out.rule('=').blankLine();
+        out.flush();
     }
 
-    // Search products by name
+    // Search products by name, category or ID (case-insensitive substring, through the trigram index)
     public ArrayList<Product> searchProducts(String searchTerm) {
         ArrayList<Product> results = new ArrayList<>();
-        String lowerSearchTerm = searchTerm.toLowerCase();
 
-        for (Product product : inventory.values()) {
-            if (product.getProductName().toLowerCase().contains(lowerSearchTerm) ||
-                    product.getCategory().toLowerCase().contains(lowerSearchTerm) ||
-                    product.getProductId().toLowerCase().contains(lowerSearchTerm)) {
+        for (String productId : searchIndex.search(searchTerm)) {
+            Product product = inventory.get(productId);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+
+        return results;
+    }
+
+    // Typo-tolerant search on product names, closest first - for when searchProducts() finds nothing.
+    // Each word of the search term may be off by one or two letters (none for words of two letters)
+    public ArrayList<Product> searchProductsFuzzy(String searchTerm) {
+        ArrayList<Product> results = new ArrayList<>();
+
+        for (String productId : nameIndex.search(searchTerm, FUZZY_MAX_RESULTS, FUZZY_BUDGET_NANOS)) {
+            Product product = inventory.get(productId);
+            if (product != null) {
                 results.add(product);
             }
         }
@@ -134,6 +450,50 @@ public class InventoryService {
         return results;
     }
 
+    // Add or refresh a product's entries in the search indexes, the low-stock watchlist and the valuation
+    private void indexProduct(Product product) {
+        stockChanged(product);
+        searchIndex.put(product.getProductId(), product.getProductName(), product.getCategory(),
+                product.getProductId());
+        nameIndex.put(product.getProductId(), product.getProductName());
+        catalogIndex.put(product.getProductId(), product.getCategory(), product.getPrice());
+    }
+
+    // Products of a category (ignoring case), cheapest first
+    public ArrayList<Product> getProductsByCategory(String category) {
+        return browseProducts(category, 0, Double.MAX_VALUE, 1, Integer.MAX_VALUE);
+    }
+
+    // One page of the products priced from minPrice to maxPrice, cheapest first.
+    // category null means every category; pages start at 1
+    public ArrayList<Product> browseProducts(String category, double minPrice, double maxPrice,
+            int page, int pageSize) {
+        ArrayList<Product> results = new ArrayList<>();
+        long offset = (long) (Math.max(page, 1) - 1) * pageSize;
+        if (offset >= Integer.MAX_VALUE) {
+            return results;
+        }
+
+        for (String productId : catalogIndex.find(category, minPrice, maxPrice, (int) offset, pageSize)) {
+            Product product = inventory.get(productId);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+
+        return results;
+    }
+
+    // Number of products browseProducts() pages through
+    public int countProducts(String category, double minPrice, double maxPrice) {
+        return catalogIndex.count(category, minPrice, maxPrice);
+    }
+
+    // Product categories (lowercase)
+    public ArrayList<String> getCategories() {
+        return catalogIndex.categories();
+    }
+
     // Check stock availability
     public boolean checkStock(String productId, int quantity)
             throws ProductNotFoundException, InsufficientStockException {
@@ -149,43 +509,142 @@ public class InventoryService {
         return true;
     }
 
-    // Reduce stock after billing
+    // Reduce stock after billing.
+    // The availability check and the decrement are a single compare-and-set, so two tills selling
+    // the last unit at the same time cannot both succeed
     public void reduceStock(String productId, int quantity)
             throws ProductNotFoundException, InsufficientStockException {
         Product product = getProduct(productId);
 
-        if (!product.hasStock(quantity)) {
+        if (product.tryReduceStock(quantity) < 0) {
+            int available = product.getStockQuantity();
             throw new InsufficientStockException(
-                    "Cannot reduce stock. Only " + product.getStockQuantity() + " units available",
-                    product.getStockQuantity(),
+                    "Cannot reduce stock. Only " + available + " units available",
+                    available,
                     quantity);
         }
 
-        product.reduceStock(quantity);
-        saveInventory();
+        stockChanged(product);
+        recordStockChange(productId, -quantity);
+    }
+
+    // Hold stock for an open bill; nothing is saved until the hold is committed
+    public Product reserveStock(String productId, int quantity)
+            throws ProductNotFoundException, InsufficientStockException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to reserve must be positive: " + quantity);
+        }
+        Product product = getProduct(productId);
+
+        if (!product.holdStock(quantity)) {
+            int available = product.getStockQuantity();
+            throw new InsufficientStockException(
+                    "Insufficient stock for " + product.getProductName() + ". Only " + available + " units available",
+                    available,
+                    quantity);
+        }
+
+        stockChanged(product);
+        return product;
+    }
+
+    // Return a hold to the available stock
+    public void releaseReservedStock(Product product, int quantity) {
+        product.releaseHeldStock(quantity);
+        stockChanged(product);
+    }
+
+    // Sell the held stock of every line of a bill, saved as one stock change.
+    // Cannot fail: every line already holds its units
+    public void commitReservedStock(List<Product> products, List<Integer> quantities) {
+        LinkedHashSet<String> productIds = new LinkedHashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            product.commitHeldStock(quantities.get(i));
+            stockChanged(product);
+            noteStockChange(product.getProductId(), -quantities.get(i));
+            productIds.add(product.getProductId());
+        }
+        persistStockChanges(productIds);
     }
 
     // Add stock to product
     public void addStock(String productId, int quantity) throws ProductNotFoundException {
         Product product = getProduct(productId);
         product.addStock(quantity);
-        saveInventory();
+        stockChanged(product);
+        recordStockChange(productId, quantity);
         System.out.println("✓ Stock updated successfully!");
     }
 
-    // Get low stock products (stock < 10)
+    // Set the stock level below which a product is low on stock
+    public void setReorderLevel(String productId, int reorderLevel) throws ProductNotFoundException {
+        Product product = getProduct(productId);
+        product.setReorderLevel(reorderLevel);
+        stockChanged(product);
+        saveCatalog();
+        System.out.println("✓ Reorder level updated successfully!");
+    }
+
+    // Get told when products cross their reorder level
+    public void addStockLevelListener(StockLevelListener listener) {
+        stockLevelListeners.add(listener);
+    }
+
+    // After a product's stock, price or reorder level changed: move it on or off the low-stock
+    // watchlist and re-value it. Both read the product under its lock, so the last change to run
+    // decides; listeners hear about each crossing once
+    private void stockChanged(Product product) {
+        boolean becameLow;
+        boolean becameRestored;
+        synchronized (product) {
+            if (inventory.get(product.getProductId()) != product) {
+                return; // Replaced or deleted meanwhile
+            }
+            valuation.update(product.getProductId(), product.getCategory(), product.getPrice(),
+                    product.getOnHandQuantity());
+            Shortfall shortfall = product.isLowStock()
+                    ? new Shortfall(product.getProductId(), product.getReorderLevel() - product.getStockQuantity())
+                    : null;
+            Shortfall previous = shortfall != null ? lowStock.put(product.getProductId(), shortfall)
+                    : lowStock.remove(product.getProductId());
+            if (previous != null) {
+                lowStockOrder.remove(previous);
+            }
+            if (shortfall != null) {
+                lowStockOrder.add(shortfall);
+            }
+            becameLow = shortfall != null && previous == null;
+            becameRestored = shortfall == null && previous != null;
+        }
+        for (StockLevelListener listener : stockLevelListeners) {
+            if (becameLow) {
+                listener.stockLow(product);
+            } else if (becameRestored) {
+                listener.stockRestored(product);
+            }
+        }
+    }
+
+    // Get low stock products (below their reorder level), furthest below first - from the watchlist
     public ArrayList<Product> getLowStockProducts() {
         ArrayList<Product> lowStockProducts = new ArrayList<>();
+        HashSet<String> listed = new HashSet<>(); // A product moving in the order meanwhile may be seen twice
 
-        for (Product product : inventory.values()) {
-            if (product.getStockQuantity() < 10) {
+        for (Shortfall shortfall : lowStockOrder) {
+            Product product = inventory.get(shortfall.productId);
+            if (product != null && listed.add(shortfall.productId)) {
                 lowStockProducts.add(product);
             }
         }
-
         return lowStockProducts;
     }
 
+    // Number of products on the low-stock watchlist
+    public int getLowStockCount() {
+        return lowStock.size();
+    }
+
     // Display low stock alert
     public void displayLowStockAlert() {
         ArrayList<Product> lowStockProducts = getLowStockProducts();
@@ -197,30 +656,34 @@ public class InventoryService {
 
         System.out.println("\n⚠ LOW STOCK ALERT ⚠");
         System.out.println("==================================================================");
-        System.out.println(String.format("%-10s %-20s %-15s %-10s",
-                "ID", "Product Name", "Category", "Stock"));
+        System.out.println(String.format("%-10s %-20s %-15s %-8s %-10s",
+                "ID", "Product Name", "Category", "Stock", "Reorder At"));
         System.out.println("------------------------------------------------------------------");
 
         for (Product product : lowStockProducts) {
-            System.out.println(String.format("%-10s %-20s %-15s %-10d",
+            System.out.println(String.format("%-10s %-20s %-15s %-8d %-10d",
                     product.getProductId(),
                     product.getProductName(),
                     product.getCategory(),
-                    product.getStockQuantity()));
+                    product.getStockQuantity(),
+                    product.getReorderLevel()));
         }
 
         System.out.println("==================================================================\n");
     }
 
-    // Get total inventory value
+    // Get total inventory value (stock on hand x price) - a running total, no catalog scan
     public double getTotalInventoryValue() {
-        double totalValue = 0.0;
+        return valuation.getTotalPaise() / 100.0;
+    }
 
-        for (Product product : inventory.values()) {
-            totalValue += (product.getPrice() * product.getStockQuantity());
+    // Inventory value of each category (lowercase, sorted)
+    public TreeMap<String, Double> getCategoryValues() {
+        TreeMap<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, Long> entry : valuation.getCategoryTotalsPaise().entrySet()) {
+            values.put(entry.getKey(), entry.getValue() / 100.0);
         }
-
-        return totalValue;
+        return values;
     }
 
     // Get product count
@@ -228,26 +691,32 @@ public class InventoryService {
         return inventory.size();
     }
 
+    // GST and cess rates used for the products
+    public TaxService getTaxService() {
+        return taxService;
+    }
+
+    // ID counters; BillingService takes its bill and customer counters from the same file
+    public SequenceService getSequenceService() {
+        return sequences;
+    }
+
     // Check if product exists
     public boolean productExists(String productId) {
         return inventory.containsKey(productId);
     }
 
-    // Generate next product ID
+    // Generate next product ID - never the same ID twice, even for concurrent callers
     public String generateNextProductId() {
-        int maxId = 0;
+        return productIds.nextId();
+    }
 
+    // Highest number among the loaded product IDs - seeds the product ID counter
+    private long highestProductNumber() {
+        long maxId = 0;
         for (String productId : inventory.keySet()) {
-            try {
-                int id = Integer.parseInt(productId.substring(1));
-                if (id > maxId) {
-                    maxId = id;
-                }
-            } catch (NumberFormatException e) {
-                // Ignore invalid IDs
-            }
+            maxId = Math.max(maxId, SequenceService.idNumber(productId));
         }
-
-        return String.format("P%03d", maxId + 1);
+        return maxId;
     }
 }
\ No newline at end of file
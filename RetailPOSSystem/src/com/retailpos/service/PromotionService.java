@@ -0,0 +1,326 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Business Logic - Promotions and discounts applied while billing
+Concepts Used : HashMap, ConcurrentHashMap, Arrays, Binary Search, File Handling,
+                Exception Handling, Enum, Lookup Tables
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.model.Customer;
+import com.retailpos.model.Product;
+import com.retailpos.util.FileUtil;
+import com.retailpos.util.MoneyUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Promotions loaded from promotions.txt:
+//   BUY_X_GET_Y      - buy X units of a product, get Y more of it free
+//   CATEGORY_PERCENT - a percentage off every product of a category
+//   BASKET_PERCENT   - a percentage off the bill once its subtotal reaches a threshold
+//   TIER_PERCENT     - a percentage off the bill for customers whose purchases so far reach a threshold
+// The rules are compiled when they load, so billing never walks the whole list: item offers are
+// grouped by product and by category, and the offers of one product are merged into an array the
+// first time it is scanned (and again only if its category changes). Basket and tier offers are
+// kept sorted by threshold with the best percentage up to each threshold, so the percentage for a
+// subtotal is one binary search. A line gets its single best item offer; a bill gets its best
+// basket offer plus its customer's best tier offer.
+// File format (promotions.txt): PromotionID|Type|Target|Value1|Value2
+//   BUY_X_GET_Y|ProductID|X|Y, CATEGORY_PERCENT|Category|Percent,
+//   BASKET_PERCENT|MinSubtotal|Percent, TIER_PERCENT|MinPurchases|Percent
+// Promotion IDs are saved inside bill records, so they may not contain ':', ';', '|' or '+'.
+public class PromotionService {
+
+    // Kinds of promotion
+    public enum Type {
+        BUY_X_GET_Y, CATEGORY_PERCENT, BASKET_PERCENT, TIER_PERCENT
+    }
+
+    // An item offer: a percentage off, or Y free units for every X bought
+    private static class ItemOffer {
+        final String promotionId;
+        final int percent;
+        final int buy;
+        final int free;
+
+        ItemOffer(String promotionId, int percent, int buy, int free) {
+            this.promotionId = promotionId;
+            this.percent = percent;
+            this.buy = buy;
+            this.free = free;
+        }
+
+        // Amount this offer takes off a line
+        long discount(int quantity, long unitPricePaise) {
+            if (buy > 0) {
+                return (long) (quantity / (buy + free)) * free * unitPricePaise;
+            }
+            return MoneyUtil.percentOf(quantity * unitPricePaise, percent);
+        }
+    }
+
+    // The item offers of one product, merged for the category it had when they were compiled
+    private static class CompiledOffers {
+        final String category;
+        final ItemOffer[] offers;
+
+        CompiledOffers(String category, ItemOffer[] offers) {
+            this.category = category;
+            this.offers = offers;
+        }
+    }
+
+    // Bill offers sorted by threshold; bestPercent[i] is the best percentage of offers 0..i
+    private static class ThresholdTable {
+        long[] thresholds = new long[0];
+        int[] bestPercent = new int[0];
+        String[] bestPromotion = new String[0];
+
+        // Index of the last threshold reached by amountPaise, or -1
+        int find(long amountPaise) {
+            int position = Arrays.binarySearch(thresholds, amountPaise);
+            return position >= 0 ? lastOf(position) : -position - 2;
+        }
+
+        // Equal thresholds sit next to each other; the last one carries the best percentage
+        private int lastOf(int position) {
+            while (position + 1 < thresholds.length && thresholds[position + 1] == thresholds[position]) {
+                position++;
+            }
+            return position;
+        }
+    }
+
+    // A line discount and the offer that gave it
+    public static class LineDiscount {
+        public static final LineDiscount NONE = new LineDiscount(0, null);
+
+        private final long discountPaise;
+        private final String promotionId;
+
+        private LineDiscount(long discountPaise, String promotionId) {
+            this.discountPaise = discountPaise;
+            this.promotionId = promotionId;
+        }
+
+        public long getDiscountPaise() {
+            return discountPaise;
+        }
+
+        public String getPromotionId() {
+            return promotionId;
+        }
+    }
+
+    private static final ItemOffer[] NO_OFFERS = new ItemOffer[0];
+
+    // Separators of a bill record, which promotion IDs are saved into
+    private static final String RESERVED_ID_CHARACTERS = ":;|+";
+
+    private final HashMap<String, ArrayList<ItemOffer>> offersByProduct = new HashMap<>();
+    private final HashMap<String, ArrayList<ItemOffer>> offersByCategory = new HashMap<>();
+    private final ConcurrentHashMap<String, CompiledOffers> compiled = new ConcurrentHashMap<>();
+    private final ThresholdTable basketOffers = new ThresholdTable();
+    private final ThresholdTable tierOffers = new ThresholdTable();
+    private int promotionCount;
+
+    // Constructor - promotions from the given file; null (or a missing file) means no promotions
+    public PromotionService(String filePath) {
+        if (filePath != null) {
+            loadPromotions(filePath);
+        }
+    }
+
+    // Best item offer for a line of a product
+    public LineDiscount lineDiscount(Product product, int quantity, long unitPricePaise) {
+        ItemOffer[] offers = offersFor(product);
+        ItemOffer best = null;
+        long bestDiscount = 0;
+        for (ItemOffer offer : offers) {
+            long discount = offer.discount(quantity, unitPricePaise);
+            if (discount > bestDiscount) {
+                best = offer;
+                bestDiscount = discount;
+            }
+        }
+        return best == null ? LineDiscount.NONE : new LineDiscount(bestDiscount, best.promotionId);
+    }
+
+    // Percentage off a bill with this subtotal for this customer (basket offer plus tier offer, at most 100)
+    public int billDiscountPercent(Customer customer, long subtotalPaise) {
+        int percent = 0;
+        int basket = basketOffers.find(subtotalPaise);
+        if (basket >= 0) {
+            percent += basketOffers.bestPercent[basket];
+        }
+        int tier = customer != null ? tierOffers.find(MoneyUtil.toPaise(customer.getTotalPurchaseAmount())) : -1;
+        if (tier >= 0) {
+            percent += tierOffers.bestPercent[tier];
+        }
+        return Math.min(percent, 100);
+    }
+
+    // IDs of the offers behind billDiscountPercent(), e.g. "FEST10+GOLD5" ("" if none)
+    public String billPromotions(Customer customer, long subtotalPaise) {
+        int basket = basketOffers.find(subtotalPaise);
+        int tier = customer != null ? tierOffers.find(MoneyUtil.toPaise(customer.getTotalPurchaseAmount())) : -1;
+        String basketId = basket >= 0 ? basketOffers.bestPromotion[basket] : null;
+        String tierId = tier >= 0 ? tierOffers.bestPromotion[tier] : null;
+        if (basketId != null && tierId != null) {
+            return basketId + "+" + tierId;
+        }
+        return basketId != null ? basketId : (tierId != null ? tierId : "");
+    }
+
+    // Number of promotions loaded
+    public int getPromotionCount() {
+        return promotionCount;
+    }
+
+    // Item offers of a product - compiled on its first scan, recompiled if its category changed
+    private ItemOffer[] offersFor(Product product) {
+        if (offersByProduct.isEmpty() && offersByCategory.isEmpty()) {
+            return NO_OFFERS;
+        }
+        CompiledOffers entry = compiled.get(product.getProductId());
+        String category = product.getCategory();
+        if (entry == null || !entry.category.equals(category)) {
+            ArrayList<ItemOffer> offers = new ArrayList<>();
+            ArrayList<ItemOffer> forProduct = offersByProduct.get(product.getProductId());
+            if (forProduct != null) {
+                offers.addAll(forProduct);
+            }
+            ArrayList<ItemOffer> forCategory = offersByCategory.get(categoryKey(category));
+            if (forCategory != null) {
+                offers.addAll(forCategory);
+            }
+            entry = new CompiledOffers(category == null ? "" : category,
+                    offers.isEmpty() ? NO_OFFERS : offers.toArray(new ItemOffer[0]));
+            compiled.put(product.getProductId(), entry);
+        }
+        return entry.offers;
+    }
+
+    // Load the promotions file and compile the lookup tables
+    private void loadPromotions(String filePath) {
+        ArrayList<String> lines;
+        try {
+            lines = FileUtil.readFromFile(filePath);
+        } catch (IOException e) {
+            System.err.println("Error loading promotions: " + e.getMessage());
+            return;
+        }
+
+        ArrayList<String[]> basketRules = new ArrayList<>();
+        ArrayList<String[]> tierRules = new ArrayList<>();
+        for (String line : lines) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\|");
+            try {
+                String promotionId = parts[0].trim();
+                checkPromotionId(promotionId);
+                Type type = Type.valueOf(parts[1].trim().toUpperCase());
+                String target = parts[2].trim();
+                int value = Integer.parseInt(parts[3].trim());
+                switch (type) {
+                    case BUY_X_GET_Y:
+                        int free = Integer.parseInt(parts[4].trim());
+                        if (value <= 0 || free <= 0) {
+                            throw new IllegalArgumentException("X and Y must be positive");
+                        }
+                        addOffer(offersByProduct, target, new ItemOffer(promotionId, 0, value, free));
+                        break;
+                    case CATEGORY_PERCENT:
+                        checkPercent(value);
+                        addOffer(offersByCategory, categoryKey(target), new ItemOffer(promotionId, value, 0, 0));
+                        break;
+                    case BASKET_PERCENT:
+                        checkPercent(value);
+                        checkThreshold(target);
+                        basketRules.add(new String[] {promotionId, target, parts[3].trim()});
+                        break;
+                    case TIER_PERCENT:
+                        checkPercent(value);
+                        checkThreshold(target);
+                        tierRules.add(new String[] {promotionId, target, parts[3].trim()});
+                        break;
+                }
+                promotionCount++;
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Skipping invalid promotion: " + line + " (" + e.getMessage() + ")");
+            }
+        }
+        compileThresholds(basketRules, basketOffers);
+        compileThresholds(tierRules, tierOffers);
+    }
+
+    private static void addOffer(HashMap<String, ArrayList<ItemOffer>> offers, String key, ItemOffer offer) {
+        ArrayList<ItemOffer> list = offers.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            offers.put(key, list);
+        }
+        list.add(offer);
+    }
+
+    // Bill records separate item fields with ':', items with ';', fields with '|' and bill offers with '+'
+    private static void checkPromotionId(String promotionId) {
+        if (promotionId.isEmpty()) {
+            throw new IllegalArgumentException("promotion ID is empty");
+        }
+        for (int i = 0; i < promotionId.length(); i++) {
+            if (RESERVED_ID_CHARACTERS.indexOf(promotionId.charAt(i)) >= 0) {
+                throw new IllegalArgumentException("promotion ID must not contain '" + promotionId.charAt(i) + "'");
+            }
+        }
+    }
+
+    private static void checkPercent(int percent) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("percent must be 1 to 100");
+        }
+    }
+
+    private static void checkThreshold(String rupees) {
+        if (Double.parseDouble(rupees) < 0) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+    }
+
+    // Sort rules {id, threshold in rupees, percent} by threshold and keep the running best percentage
+    private static void compileThresholds(ArrayList<String[]> rules, ThresholdTable table) {
+        final HashMap<String[], Long> thresholds = new HashMap<>();
+        for (String[] rule : rules) {
+            thresholds.put(rule, MoneyUtil.toPaise(Double.parseDouble(rule[1])));
+        }
+        Collections.sort(rules, new Comparator<String[]>() {
+            @Override
+            public int compare(String[] a, String[] b) {
+                return Long.compare(thresholds.get(a), thresholds.get(b));
+            }
+        });
+        table.thresholds = new long[rules.size()];
+        table.bestPercent = new int[rules.size()];
+        table.bestPromotion = new String[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            String[] rule = rules.get(i);
+            int percent = Integer.parseInt(rule[2]);
+            table.thresholds[i] = thresholds.get(rule);
+            boolean better = i == 0 || percent > table.bestPercent[i - 1];
+            table.bestPercent[i] = better ? percent : table.bestPercent[i - 1];
+            table.bestPromotion[i] = better ? rule[0] : table.bestPromotion[i - 1];
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase();
+    }
+}
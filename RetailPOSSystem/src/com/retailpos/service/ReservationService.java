@@ -0,0 +1,298 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Business Logic - Stock Reservations for Open Bills
+Concepts Used : ConcurrentHashMap, ArrayList, Timer Wheel, Synchronization,
+                Exception Handling, Business Logic Implementation
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.model.Bill;
+import com.retailpos.model.Product;
+import com.retailpos.exception.ProductNotFoundException;
+import com.retailpos.exception.InsufficientStockException;
+import com.retailpos.util.TimerWheel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Time-limited stock reservations.
+// Scanning an item holds its stock for the bill, so a second till cannot sell the same last unit and
+// the customer does not find out at payment. Completing the bill commits its holds; cancelling it, or
+// leaving a hold longer than the TTL, returns the stock. Expiry runs on a timer wheel.
+public class ReservationService {
+
+    // Default time a scanned item stays reserved
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000L;
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+
+    // Hold states: open (can expire), claimed by a commit in progress, or closed
+    private static final int OPEN = 0;
+    private static final int CLAIMED = 1;
+    private static final int CLOSED = 2;
+
+    // Stock held by one scan of a bill; its lock makes commit, release and expiry mutually exclusive.
+    // Several scans of a product each keep their hold, though the bill shows them as one line
+    private class Hold {
+        final String billId;
+        final Product product;
+        int quantity; // Lowered only by shrink(), on the bill's own thread
+        TimerWheel.Timeout timeout; // null for a hold taken during commit
+        private int state;
+
+        Hold(String billId, Product product, int quantity, int state) {
+            this.billId = billId;
+            this.product = product;
+            this.quantity = quantity;
+            this.state = state;
+        }
+
+        // Take the hold for a commit, so it cannot expire meanwhile; false if it was already released
+        synchronized boolean claim() {
+            if (state != OPEN) {
+                return false;
+            }
+            state = CLAIMED;
+            return true;
+        }
+
+        // Give a claimed hold back after a failed commit; released if it expired while claimed
+        synchronized void unclaim() {
+            if (state == CLAIMED) {
+                state = OPEN;
+                if (timeout == null || timeout.isExpired()) {
+                    release();
+                }
+            }
+        }
+
+        // Mark a claimed hold as sold (its stock is committed by the caller)
+        synchronized void close() {
+            state = CLOSED;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        // Return up to units of the held stock (all of it closes the hold), returns the units taken off.
+        // A hold that already expired has nothing left to return, but its units still count
+        synchronized int shrink(int units) {
+            int taken = Math.min(units, quantity);
+            quantity -= taken;
+            if (state != CLOSED) {
+                inventoryService.releaseReservedStock(product, taken);
+                if (quantity == 0 && state == OPEN) {
+                    state = CLOSED;
+                    if (timeout != null) {
+                        timeout.cancel();
+                    }
+                }
+            }
+            return taken;
+        }
+
+        // Return the held stock, unless a commit has claimed it
+        synchronized void release() {
+            if (state == OPEN) {
+                state = CLOSED;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                inventoryService.releaseReservedStock(product, quantity);
+            }
+        }
+    }
+
+    private final InventoryService inventoryService;
+    private final long ttlMillis;
+    private final TimerWheel timerWheel;
+    // Each bill's holds in scan order; lists are only changed inside the map's atomic compute calls
+    private final ConcurrentHashMap<String, ArrayList<Hold>> holdsByBill = new ConcurrentHashMap<>();
+
+    // Constructor - starts the expiry timer
+    public ReservationService(InventoryService inventoryService, long ttlMillis) {
+        this.inventoryService = inventoryService;
+        this.ttlMillis = ttlMillis;
+        this.timerWheel = new TimerWheel("reservation-expiry", TICK_MILLIS, WHEEL_SLOTS);
+    }
+
+    // Hold stock for a bill line until the bill completes, is cancelled, or the TTL runs out
+    public Product reserve(Bill bill, String productId, int quantity)
+            throws ProductNotFoundException, InsufficientStockException {
+        Product product = inventoryService.reserveStock(productId, quantity);
+        final Hold hold = new Hold(bill.getBillId(), product, quantity, OPEN);
+        synchronized (hold) {
+            hold.timeout = timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire(hold);
+                }
+            }, ttlMillis);
+        }
+        holdsByBill.compute(bill.getBillId(), (billId, holds) -> {
+            if (holds == null) {
+                holds = new ArrayList<>();
+            }
+            holds.add(hold);
+            return holds;
+        });
+        return product;
+    }
+
+    // The holds a bill's lines have claimed, between claim() and commit() or unclaim()
+    public static class Claim {
+        private final String billId;
+        private final ArrayList<Hold> holds;                          // The bill's holds, in scan order
+        private final HashMap<String, ArrayDeque<Hold>> unmatched;    // Holds no line has claimed
+        private final ArrayList<Hold> claimed = new ArrayList<>();
+        private final ArrayList<Product> products;
+        private final ArrayList<Integer> quantities;
+
+        private Claim(String billId, ArrayList<Hold> holds, int lineCount) {
+            this.billId = billId;
+            this.holds = holds;
+            this.unmatched = new HashMap<>();
+            this.products = new ArrayList<>(lineCount);
+            this.quantities = new ArrayList<>(lineCount);
+        }
+    }
+
+    // Claim the stock of every bill line, all or nothing, so it can be sold with commit().
+    // Every line claims the holds of its product, or holds the stock again for units whose hold
+    // expired. If any line cannot get its stock, the claims are undone and InsufficientStockException
+    // is thrown; the bill keeps its holds. Claimed holds cannot expire until commit() or unclaim()
+    public Claim claim(Bill bill) throws ProductNotFoundException, InsufficientStockException {
+        Claim claim = new Claim(bill.getBillId(), takeHolds(bill.getBillId()), bill.getItemCount());
+        for (Hold hold : claim.holds) {
+            ArrayDeque<Hold> productHolds = claim.unmatched.get(hold.product.getProductId());
+            if (productHolds == null) {
+                productHolds = new ArrayDeque<>();
+                claim.unmatched.put(hold.product.getProductId(), productHolds);
+            }
+            productHolds.add(hold);
+        }
+
+        boolean validated = false;
+        try {
+            for (Bill.BillItem item : bill.getItems()) {
+                int needed = item.getQuantity();
+                Product product = null;
+                ArrayDeque<Hold> productHolds = claim.unmatched.get(item.getProductId());
+                while (needed > 0 && productHolds != null && !productHolds.isEmpty()) {
+                    Hold hold = productHolds.pollFirst();
+                    if (hold.claim()) {
+                        claim.claimed.add(hold);
+                        product = hold.product;
+                        needed -= hold.quantity;
+                    }
+                }
+                if (needed < 0) {
+                    // The last hold covers more than the line still needs
+                    claim.claimed.get(claim.claimed.size() - 1).shrink(-needed);
+                } else if (needed > 0) {
+                    product = inventoryService.reserveStock(item.getProductId(), needed);
+                    claim.claimed.add(new Hold(bill.getBillId(), product, needed, CLAIMED));
+                }
+                claim.products.add(product);
+                claim.quantities.add(item.getQuantity());
+            }
+            validated = true;
+        } finally {
+            if (!validated) {
+                unclaim(claim);
+            }
+        }
+        return claim;
+    }
+
+    // Sell the claimed stock as one stock change, with one entry per line however many scans it took
+    public void commit(Claim claim) {
+        for (Hold hold : claim.claimed) {
+            hold.close();
+        }
+        inventoryService.commitReservedStock(claim.products, claim.quantities);
+
+        // Holds that match no line of the bill are returned
+        for (ArrayDeque<Hold> productHolds : claim.unmatched.values()) {
+            for (Hold hold : productHolds) {
+                hold.release();
+            }
+        }
+    }
+
+    // Give the claimed holds back to the bill without selling anything (the bill stays open)
+    public void unclaim(Claim claim) {
+        for (Hold hold : claim.claimed) {
+            hold.unclaim();
+        }
+        holdsByBill.put(claim.billId, claim.holds);
+    }
+
+    // Return quantity units of a product held for a bill, after its line was reduced or voided.
+    // The latest scans give their stock back first
+    public void release(Bill bill, final String productId, final int quantity) {
+        final ArrayList<Hold> shrinking = new ArrayList<>();
+        holdsByBill.computeIfPresent(bill.getBillId(), (billId, holds) -> {
+            final HashSet<Hold> returned = new HashSet<>();
+            int remaining = quantity;
+            for (int i = holds.size() - 1; i >= 0 && remaining > 0; i--) {
+                Hold hold = holds.get(i);
+                if (hold.product.getProductId().equals(productId)) {
+                    shrinking.add(hold);
+                    remaining -= hold.quantity;
+                    if (remaining >= 0) {
+                        returned.add(hold); // Returned in full
+                    }
+                }
+            }
+            holds.removeIf(hold -> returned.contains(hold));
+            return holds.isEmpty() ? null : holds;
+        });
+        int remaining = quantity;
+        for (Hold hold : shrinking) {
+            remaining -= hold.shrink(remaining);
+        }
+    }
+
+    // Return the stock of every line of a cancelled bill
+    public void release(Bill bill) {
+        for (Hold hold : takeHolds(bill.getBillId())) {
+            hold.release();
+        }
+    }
+
+    // Number of bills with stock on hold
+    public int getOpenBillCount() {
+        return holdsByBill.size();
+    }
+
+    // Stop the expiry timer and return all held stock
+    public void shutdown() {
+        timerWheel.shutdown();
+        for (String billId : holdsByBill.keySet()) {
+            for (Hold hold : takeHolds(billId)) {
+                hold.release();
+            }
+        }
+    }
+
+    // Remove and return a bill's holds, in scan order
+    private ArrayList<Hold> takeHolds(String billId) {
+        ArrayList<Hold> holds = holdsByBill.remove(billId);
+        return holds == null ? new ArrayList<Hold>() : holds;
+    }
+
+    // Timer wheel callback - release an expired hold and forget it
+    private void expire(Hold hold) {
+        hold.release();
+        holdsByBill.computeIfPresent(hold.billId, (billId, holds) -> {
+            holds.remove(hold);
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+}
@@ -0,0 +1,188 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Business Logic - Persistent ID sequences for bills, customers and products
+Concepts Used : AtomicLong, HashMap, File Handling, Exception Handling, Block Preallocation,
+                Synchronization
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.util.FileUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Named counters that hand out IDs like B0001, C001, P001.
+// Each counter is an AtomicLong, so getting the next ID is one atomic increment whatever the number of
+// bills or customers. Instead of saving every number, a counter reserves a block of numbers at a time
+// and saves only the end of the block - one small file write per BLOCK_SIZE IDs.
+// After a restart a counter continues after the saved block end, so numbers handed out before a crash
+// are never reused; the unused rest of that block is skipped.
+// File format (sequences.txt): name|lastReservedNumber
+public class SequenceService {
+
+    // Numbers reserved per file write
+    public static final int BLOCK_SIZE = 1000;
+
+    // One named counter
+    public class Sequence {
+        private final String name;
+        private final String prefix;
+        private final int width;
+        private final AtomicLong last;
+        private volatile long reservedUpTo;
+
+        private Sequence(String name, String prefix, int width, long start) {
+            this.name = name;
+            this.prefix = prefix;
+            this.width = width;
+            this.last = new AtomicLong(start);
+            this.reservedUpTo = start;
+        }
+
+        // Next ID, e.g. "B0042"
+        public String nextId() {
+            return format(next());
+        }
+
+        // Next number; safe to call from any thread
+        public long next() {
+            long value = last.incrementAndGet();
+            if (value > reservedUpTo) {
+                reserve(this, value);
+            }
+            return value;
+        }
+
+        // Take count consecutive numbers in one step and return the first - for callers that hand
+        // them out themselves (e.g. one billing terminal)
+        public long nextBlock(int count) {
+            long first = last.getAndAdd(count) + 1;
+            long end = first + count - 1;
+            if (end > reservedUpTo) {
+                reserve(this, end);
+            }
+            return first;
+        }
+
+        // Never hand out a number at or below value again (e.g. after an ID was added by hand)
+        public void advanceTo(long value) {
+            long current = last.get();
+            while (value > current && !last.compareAndSet(current, value)) {
+                current = last.get();
+            }
+            if (value > reservedUpTo) {
+                reserve(this, value);
+            }
+        }
+
+        // Prefix plus the number zero-padded to the width; larger numbers keep all their digits (B10000)
+        public String format(long value) {
+            String digits = Long.toString(value);
+            StringBuilder id = new StringBuilder(prefix.length() + Math.max(width, digits.length()));
+            id.append(prefix);
+            for (int i = digits.length(); i < width; i++) {
+                id.append('0');
+            }
+            return id.append(digits).toString();
+        }
+    }
+
+    private final String filePath;
+    private final int blockSize;
+    private final HashMap<String, Long> savedLimits = new HashMap<>();
+    private final HashMap<String, Sequence> sequences = new HashMap<>();
+
+    // Constructor - counters saved in the given file; null keeps them in memory only
+    public SequenceService(String filePath) {
+        this(filePath, BLOCK_SIZE);
+    }
+
+    // Constructor - with the number of IDs reserved per file write
+    public SequenceService(String filePath, int blockSize) {
+        this.filePath = filePath;
+        this.blockSize = blockSize;
+        loadLimits();
+    }
+
+    // The counter with this name. It continues after the larger of seed (usually the highest existing
+    // ID number) and the block saved by a previous run
+    public synchronized Sequence sequence(String name, String prefix, int width, long seed) {
+        Sequence sequence = sequences.get(name);
+        if (sequence == null) {
+            Long saved = savedLimits.get(name);
+            sequence = new Sequence(name, prefix, width, Math.max(seed, saved != null ? saved : 0));
+            sequences.put(name, sequence);
+        }
+        return sequence;
+    }
+
+    // Number part of an ID like "C042", or -1 if it has none
+    public static long idNumber(String id) {
+        if (id == null || id.length() < 2) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 1; i < id.length(); i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Reserve the next block for a counter and save it before its numbers are used.
+    // If the save fails the numbers are still handed out; the counters are seeded from the
+    // existing IDs on the next start, so only numbers never saved anywhere could come back
+    private synchronized void reserve(Sequence sequence, long value) {
+        if (value <= sequence.reservedUpTo) {
+            return; // Another thread reserved it first
+        }
+        long limit = value + blockSize - 1;
+        savedLimits.put(sequence.name, limit);
+        saveLimits();
+        sequence.reservedUpTo = limit;
+    }
+
+    // Load the saved block ends
+    private void loadLimits() {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            for (String line : FileUtil.readFromFile(filePath)) {
+                String[] parts = line.split("\\|");
+                if (parts.length == 2) {
+                    try {
+                        savedLimits.put(parts[0], Long.parseLong(parts[1].trim()));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Skipping malformed sequence line: " + line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading sequences: " + e.getMessage());
+        }
+    }
+
+    // Save the block ends of all counters
+    private void saveLimits() {
+        if (filePath == null) {
+            return;
+        }
+        ArrayList<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : savedLimits.entrySet()) {
+            lines.add(entry.getKey() + "|" + entry.getValue());
+        }
+        try {
+            FileUtil.replaceAllLines(filePath, lines);
+        } catch (IOException e) {
+            System.err.println("Error saving sequences: " + e.getMessage());
+        }
+    }
+}
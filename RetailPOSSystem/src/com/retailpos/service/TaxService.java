@@ -0,0 +1,114 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Business Logic - GST and cess rates per product category
+Concepts Used : HashMap, Arrays, File Handling, Exception Handling, Lookup Tables
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.model.Bill;
+import com.retailpos.util.FileUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// GST slab (0, 5, 12, 18 or 28%) and cess of each product category.
+// Every distinct rate pair becomes a tax class numbered from 0; the rates of class c are
+// gstPercent[c] and cessPercent[c]. Products are given their class when the catalog is loaded or
+// changed, so billing an item reads two array slots instead of looking up its category.
+// Class 0 is the default rate, used for categories not in the file.
+// File format (tax_rates.txt): Category|GstPercent|CessPercent
+public class TaxService {
+
+    // GST slabs a category can be put in
+    private static final int[] GST_SLABS = {0, 5, 12, 18, 28};
+
+    private int[] gstPercent = {Bill.DEFAULT_GST_PERCENT};
+    private int[] cessPercent = {0};
+    private final HashMap<String, Integer> classByCategory = new HashMap<>();
+
+    // Constructor - rates from the given file; null (or a missing file) puts everything at the default rate
+    public TaxService(String filePath) {
+        if (filePath != null) {
+            loadRates(filePath);
+        }
+    }
+
+    // Tax class of a category (ignoring case)
+    public int classOf(String category) {
+        Integer taxClass = classByCategory.get(categoryKey(category));
+        return taxClass != null ? taxClass : 0;
+    }
+
+    // GST percentage of a tax class
+    public int getGstPercent(int taxClass) {
+        return gstPercent[taxClass];
+    }
+
+    // Cess percentage of a tax class
+    public int getCessPercent(int taxClass) {
+        return cessPercent[taxClass];
+    }
+
+    // Load the rates file and build the class tables
+    private void loadRates(String filePath) {
+        ArrayList<String> lines;
+        try {
+            lines = FileUtil.readFromFile(filePath);
+        } catch (IOException e) {
+            System.err.println("Error loading tax rates: " + e.getMessage());
+            return;
+        }
+
+        ArrayList<Integer> gst = new ArrayList<>();
+        ArrayList<Integer> cess = new ArrayList<>();
+        gst.add(Bill.DEFAULT_GST_PERCENT);
+        cess.add(0);
+        for (String line : lines) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\|");
+            try {
+                int lineGst = Integer.parseInt(parts[1].trim());
+                int lineCess = parts.length > 2 ? Integer.parseInt(parts[2].trim()) : 0;
+                if (!isSlab(lineGst) || lineCess < 0) {
+                    System.err.println("Skipping invalid tax rate: " + line);
+                    continue;
+                }
+                int taxClass = 0;
+                while (taxClass < gst.size() && (gst.get(taxClass) != lineGst || cess.get(taxClass) != lineCess)) {
+                    taxClass++;
+                }
+                if (taxClass == gst.size()) {
+                    gst.add(lineGst);
+                    cess.add(lineCess);
+                }
+                classByCategory.put(categoryKey(parts[0]), taxClass);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Skipping malformed tax rate: " + line);
+            }
+        }
+
+        gstPercent = new int[gst.size()];
+        cessPercent = new int[cess.size()];
+        for (int i = 0; i < gstPercent.length; i++) {
+            gstPercent[i] = gst.get(i);
+            cessPercent[i] = cess.get(i);
+        }
+    }
+
+    private static boolean isSlab(int percent) {
+        for (int slab : GST_SLABS) {
+            if (slab == percent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase();
+    }
+}
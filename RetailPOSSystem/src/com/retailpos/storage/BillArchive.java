@@ -0,0 +1,297 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Memory-mapped bill history with billId -> offset index
+Concepts Used : FileChannel, MappedByteBuffer, Hashing, Open Addressing,
+                Iterator, Exception Handling
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Bill;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+// Read-only view of a bills file (legacy bills.txt or a bill segment) through memory-mapped regions.
+// Only a compact index (one long per bill) is kept on the heap; a Bill object is decoded
+// from the mapped bytes when it is asked for.
+public class BillArchive implements Iterable<Bill> {
+
+    private static final Charset CHARSET = ParallelBillLoader.CHARSET;
+
+    private final ArrayList<MappedByteBuffer> regions = new ArrayList<>();
+    private final ArrayList<Long> regionStarts = new ArrayList<>();
+    private ArrayList<ParallelBillLoader.Chunk> chunks = new ArrayList<>();
+
+    // Open-addressing table of (global offset + 1), 0 marks an empty slot.
+    // Keys are not stored - the bill ID is compared directly in the mapped file.
+    private long[] table = new long[16];
+    private int count;
+    private int maxBillNumber;
+
+    // Constructor - maps the file and builds the index on all cores
+    public BillArchive(String filePath) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return;
+        }
+
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        try {
+            ParallelBillLoader.mapRegions(channel, regions, regionStarts);
+        } finally {
+            // Mappings stay valid after the channel is closed
+            channel.close();
+        }
+
+        chunks = ParallelBillLoader.split(regions, regionStarts);
+        for (ParallelBillLoader.ChunkIndex chunkIndex : ParallelBillLoader.index(chunks)) {
+            for (int i = 0; i < chunkIndex.count; i++) {
+                insert(chunkIndex.offsets[i]);
+            }
+            if (chunkIndex.maxBillNumber > maxBillNumber) {
+                maxBillNumber = chunkIndex.maxBillNumber;
+            }
+        }
+    }
+
+    // Length of the bill ID at the start of a line, or 0 for a blank/invalid line
+    private int idLength(MappedByteBuffer buffer, int lineStart, int lineEnd) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer.get(i) == '|') {
+                return i - lineStart;
+            }
+        }
+        return 0;
+    }
+
+    private void insert(long globalOffset) {
+        if ((count + 1) * 2 > table.length) {
+            resize();
+        }
+        MappedByteBuffer buffer = regionFor(globalOffset);
+        int localOffset = localOffset(globalOffset);
+        int idLength = idLength(buffer, localOffset, buffer.limit());
+        int mask = table.length - 1;
+        int slot = hash(buffer, localOffset, idLength) & mask;
+        while (table[slot] != 0) {
+            if (sameId(table[slot] - 1, buffer, localOffset, idLength)) {
+                table[slot] = globalOffset + 1; // Later record with the same ID wins
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = globalOffset + 1;
+        count++;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long entry : old) {
+            if (entry == 0) {
+                continue;
+            }
+            long offset = entry - 1;
+            MappedByteBuffer buffer = regionFor(offset);
+            int local = localOffset(offset);
+            int slot = hash(buffer, local, idLength(buffer, local, buffer.limit())) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+    }
+
+    private static int hash(MappedByteBuffer buffer, int start, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + buffer.get(start + i);
+        }
+        return mix(h);
+    }
+
+    private static int hash(byte[] key) {
+        int h = 0;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private boolean sameId(long offset, MappedByteBuffer other, int otherStart, int otherLength) {
+        MappedByteBuffer buffer = regionFor(offset);
+        int local = localOffset(offset);
+        if (idLength(buffer, local, buffer.limit()) != otherLength) {
+            return false;
+        }
+        for (int i = 0; i < otherLength; i++) {
+            if (buffer.get(local + i) != other.get(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameId(long offset, byte[] key) {
+        MappedByteBuffer buffer = regionFor(offset);
+        int local = localOffset(offset);
+        if (local + key.length >= buffer.limit() || buffer.get(local + key.length) != '|') {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(local + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Binary search for the region holding a global offset
+    private int regionIndex(long offset) {
+        int low = 0;
+        int high = regionStarts.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (regionStarts.get(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private MappedByteBuffer regionFor(long offset) {
+        return regions.get(regionIndex(offset));
+    }
+
+    private int localOffset(long offset) {
+        return (int) (offset - regionStarts.get(regionIndex(offset)));
+    }
+
+    // Decode the line starting at a local offset of a region
+    private static Bill decode(MappedByteBuffer buffer, int start) {
+        int limit = buffer.limit();
+        int end = start;
+        while (end < limit && buffer.get(end) != '\n') {
+            end++;
+        }
+        int length = end - start;
+        if (length > 0 && buffer.get(end - 1) == '\r') {
+            length--;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return Bill.fromFileString(new String(bytes, CHARSET));
+    }
+
+    // Global offset of a bill's record, or -1 if not present
+    private long find(String billId) {
+        if (count == 0) {
+            return -1;
+        }
+        byte[] key = billId.getBytes(CHARSET);
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != 0) {
+            long offset = table[slot] - 1;
+            if (sameId(offset, key)) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Look up one bill by ID, decoding only that record; null if not present
+    public Bill getBill(String billId) {
+        long offset = find(billId);
+        if (offset < 0) {
+            return null;
+        }
+        return decode(regionFor(offset), localOffset(offset));
+    }
+
+    // Check if a bill ID is present without decoding it
+    public boolean contains(String billId) {
+        return find(billId) >= 0;
+    }
+
+    // Number of distinct bills in the archive
+    public int size() {
+        return count;
+    }
+
+    // Highest numeric part seen in bill IDs (B0042 -> 42)
+    public int getMaxBillNumber() {
+        return maxBillNumber;
+    }
+
+    // Decode all bills accepted by the filter on all cores, in file order
+    public ArrayList<Bill> findAll(Predicate<Bill> filter) {
+        return ParallelBillLoader.parse(chunks, filter);
+    }
+
+    // Iterate over all bills in file order, decoding one at a time
+    @Override
+    public Iterator<Bill> iterator() {
+        return new Iterator<Bill>() {
+            private int region = 0;
+            private int position = 0;
+            private Bill next = advance();
+
+            private Bill advance() {
+                while (region < regions.size()) {
+                    MappedByteBuffer buffer = regions.get(region);
+                    int limit = buffer.limit();
+                    while (position < limit) {
+                        int start = position;
+                        while (position < limit && buffer.get(position) != '\n') {
+                            position++;
+                        }
+                        position++; // Skip the newline
+                        Bill bill = decode(buffer, start);
+                        if (bill != null) {
+                            return bill;
+                        }
+                    }
+                    region++;
+                    position = 0;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Bill next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Bill current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+}
@@ -0,0 +1,286 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Group-commit writer for bills.txt
+Concepts Used : FileChannel, ByteBuffer, Threads, BlockingQueue, CompletableFuture,
+                Exception Handling, Durability Policies
+*/
+
+package com.retailpos.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Group-commit writer for bills.txt.
+// Bills from all checkouts are queued; one background thread writes whatever is queued
+// in a single batch and forces it to disk according to the durability policy.
+public class BillWriter {
+
+    // When queued bills are forced to disk
+    public enum Durability {
+        PER_BILL,   // Every append waits until its batch is synced (concurrent bills share one fsync)
+        INTERVAL,   // Sync at most every N milliseconds, appends return immediately
+        COUNT       // Sync every N bills, appends return immediately
+    }
+
+    // COUNT policy still syncs a partial batch after this much idle time
+    private static final long IDLE_SYNC_MS = 1000;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // One queued bill line (or a flush marker when data is null)
+    private static class PendingWrite {
+        final byte[] data;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingWrite(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long policyValue;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Whether appends and flushes are accepted; checked and changed together with queueing
+    // under queueLock, so nothing can be queued behind the final flush of close()
+    private final Object queueLock = new Object();
+    private boolean open = true;
+
+    // Written but not yet synced
+    private final ArrayList<PendingWrite> unsynced = new ArrayList<>();
+    private long lastSyncTime = System.currentTimeMillis();
+
+    // Constructor - opens one long-lived append channel
+    // policyValue is the interval in ms for INTERVAL, the bill count for COUNT, ignored for PER_BILL
+    public BillWriter(String filePath, Durability durability, long policyValue) throws IOException {
+        File file = new File(filePath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        this.channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.durability = durability;
+        this.policyValue = Math.max(1, policyValue);
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "bill-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    // Queue one bill line.
+    // With PER_BILL durability this blocks until the line is on disk.
+    public void append(String line) throws IOException {
+        CompletableFuture<Void> written = enqueue(encode(line));
+        if (durability == Durability.PER_BILL) {
+            awaitWritten(written);
+        }
+    }
+
+    // A bill line as the UTF-8 bytes written to the file (line separator included)
+    public static byte[] encode(String line) {
+        return (line + LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Queue an encoded line without waiting for it; the result completes once the line is synced.
+    // Lets a caller queue under its own lock and wait with awaitWritten() after releasing it,
+    // so concurrent bills can still share one fsync
+    public CompletableFuture<Void> enqueue(byte[] record) throws IOException {
+        PendingWrite write = new PendingWrite(record);
+        synchronized (queueLock) {
+            if (!open) {
+                throw new IOException("Bill writer is closed");
+            }
+            queue.add(write);
+        }
+        return write.done;
+    }
+
+    // Block until everything queued so far is written and synced
+    public void flush() throws IOException {
+        PendingWrite marker = new PendingWrite(null);
+        synchronized (queueLock) {
+            if (!open) {
+                throw new IOException("Bill writer is closed");
+            }
+            queue.add(marker);
+        }
+        awaitWritten(marker.done);
+    }
+
+    // Stop taking bills, flush the ones already queued and close the channel.
+    // Writes still pending after that (only possible if the final flush failed) fail with an IOException
+    public void close() throws IOException {
+        PendingWrite marker = new PendingWrite(null);
+        synchronized (queueLock) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            queue.add(marker);
+        }
+        try {
+            awaitWritten(marker.done);
+        } finally {
+            running = false;
+            writerThread.interrupt();
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ArrayList<PendingWrite> leftover = new ArrayList<>();
+            queue.drainTo(leftover);
+            IOException closed = new IOException("Bill writer closed before the bill was written");
+            fail(leftover, closed);
+            fail(unsynced, closed);
+            channel.close();
+        }
+    }
+
+    // Block until a line queued with enqueue() is on disk (or its write failed)
+    public void awaitWritten(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for bill to be written", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Error writing bill", cause);
+        }
+    }
+
+    // Background loop - one batched write (and possibly one fsync) per wake-up
+    private void writeLoop() {
+        ArrayList<PendingWrite> batch = new ArrayList<>();
+        while (running) {
+            try {
+                PendingWrite first = queue.poll(pollTimeout(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+
+            try {
+                boolean forceRequested = writeBatch(batch);
+                if (forceRequested || shouldSync()) {
+                    sync();
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing bills: " + e.getMessage());
+                fail(batch, e);
+                fail(unsynced, e);
+            }
+            batch.clear();
+        }
+    }
+
+    // How long the writer may sleep before a pending sync is due
+    private long pollTimeout() {
+        if (unsynced.isEmpty()) {
+            return IDLE_SYNC_MS;
+        }
+        if (durability == Durability.INTERVAL) {
+            long remaining = policyValue - (System.currentTimeMillis() - lastSyncTime);
+            return Math.max(0, remaining);
+        }
+        return IDLE_SYNC_MS;
+    }
+
+    // Write the whole batch with as few channel writes as possible, returns true if a flush was requested
+    private boolean writeBatch(ArrayList<PendingWrite> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        int size = 0;
+        boolean forceRequested = false;
+        for (PendingWrite write : batch) {
+            if (write.data == null) {
+                forceRequested = true;
+            } else {
+                size += write.data.length;
+            }
+        }
+
+        if (size > 0) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (PendingWrite write : batch) {
+                if (write.data != null) {
+                    buffer.put(write.data);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        unsynced.addAll(batch);
+        return forceRequested;
+    }
+
+    private boolean shouldSync() {
+        if (unsynced.isEmpty()) {
+            return false;
+        }
+        long sinceLastSync = System.currentTimeMillis() - lastSyncTime;
+        switch (durability) {
+            case PER_BILL:
+                return true;
+            case INTERVAL:
+                return sinceLastSync >= policyValue;
+            case COUNT:
+                return unsynced.size() >= policyValue || sinceLastSync >= IDLE_SYNC_MS;
+            default:
+                return true;
+        }
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        lastSyncTime = System.currentTimeMillis();
+        for (PendingWrite write : unsynced) {
+            write.done.complete(null);
+        }
+        unsynced.clear();
+    }
+
+    private void fail(ArrayList<PendingWrite> writes, IOException e) {
+        for (PendingWrite write : writes) {
+            write.done.completeExceptionally(e);
+        }
+        writes.clear();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Versioned binary snapshots of products and customers
+Concepts Used : DataOutputStream, FileChannel, MappedByteBuffer, CRC32 Checksum,
+                Binary File Formats, Exception Handling
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Customer;
+import com.retailpos.model.Product;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Binary snapshot files kept next to products.txt and customers.txt for fast startup.
+//
+// Layout (big-endian):
+//   header : magic(int) version(short) recordType(byte) recordCount(int) payloadLength(long) crc32(long)
+//   payload: records of length-prefixed UTF-8 strings (int length + bytes) and fixed-width numerics
+//   product : id name category price(double) stock(int) description reorderLevel(int, since version 2)
+//   customer: id name phone email totalPurchaseAmount(double)
+public class BinarySnapshot {
+
+    public static final int MAGIC = 0x52504F53; // "RPOS"
+    public static final short VERSION = 2;
+
+    public static final byte TYPE_PRODUCTS = 'P';
+    public static final byte TYPE_CUSTOMERS = 'C';
+
+    private static final int HEADER_SIZE = 4 + 2 + 1 + 4 + 8 + 8;
+
+    // Check if a snapshot exists and was written after the text file it mirrors
+    public static boolean isCurrent(String snapshotPath, String textPath) {
+        File snapshot = new File(snapshotPath);
+        File text = new File(textPath);
+        if (!snapshot.exists()) {
+            return false;
+        }
+        return !text.exists() || snapshot.lastModified() >= text.lastModified();
+    }
+
+    // Write all products to a snapshot file
+    public static void writeProducts(String path, Collection<Product> products) throws IOException {
+        SnapshotOutput out = new SnapshotOutput(path, TYPE_PRODUCTS);
+        try {
+            for (Product product : products) {
+                out.writeString(product.getProductId());
+                out.writeString(product.getProductName());
+                out.writeString(product.getCategory());
+                out.data.writeDouble(product.getPrice());
+                out.data.writeInt(product.getStockQuantity());
+                out.writeString(product.getDescription());
+                out.data.writeInt(product.getReorderLevel());
+                out.recordCount++;
+            }
+        } catch (IOException e) {
+            out.abort();
+            throw e;
+        }
+        out.commit();
+    }
+
+    // Read all products from a snapshot file
+    public static ArrayList<Product> readProducts(String path) throws IOException {
+        ByteBuffer buffer = openPayload(path, TYPE_PRODUCTS);
+        boolean hasReorderLevel = buffer.getShort(4) >= 2;
+        int recordCount = buffer.getInt(7);
+        buffer.position(HEADER_SIZE);
+
+        ArrayList<Product> products = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            Product product = new Product();
+            product.setProductId(readString(buffer));
+            product.setProductName(readString(buffer));
+            product.setCategory(readString(buffer));
+            product.setPrice(buffer.getDouble());
+            product.setStockQuantity(buffer.getInt());
+            product.setDescription(readString(buffer));
+            if (hasReorderLevel) {
+                product.setReorderLevel(buffer.getInt());
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    // Write all customers to a snapshot file
+    public static void writeCustomers(String path, Collection<Customer> customers) throws IOException {
+        SnapshotOutput out = new SnapshotOutput(path, TYPE_CUSTOMERS);
+        try {
+            for (Customer customer : customers) {
+                out.writeString(customer.getCustomerId());
+                out.writeString(customer.getCustomerName());
+                out.writeString(customer.getPhoneNumber());
+                out.writeString(customer.getEmail());
+                out.data.writeDouble(customer.getTotalPurchaseAmount());
+                out.recordCount++;
+            }
+        } catch (IOException e) {
+            out.abort();
+            throw e;
+        }
+        out.commit();
+    }
+
+    // Read all customers from a snapshot file
+    public static ArrayList<Customer> readCustomers(String path) throws IOException {
+        ByteBuffer buffer = openPayload(path, TYPE_CUSTOMERS);
+        int recordCount = buffer.getInt(7);
+        buffer.position(HEADER_SIZE);
+
+        ArrayList<Customer> customers = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            Customer customer = new Customer();
+            customer.setCustomerId(readString(buffer));
+            customer.setCustomerName(readString(buffer));
+            customer.setPhoneNumber(readString(buffer));
+            customer.setEmail(readString(buffer));
+            customer.setTotalPurchaseAmount(buffer.getDouble());
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    // Read a snapshot file in one go and verify its header and checksum.
+    // A heap array lets strings be decoded straight from it without per-field copies.
+    private static ByteBuffer openPayload(String path, byte expectedType) throws IOException {
+        long size = new File(path).length();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Invalid snapshot size: " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)));
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+        if (buffer.get(6) != expectedType) {
+            throw new IOException("Wrong snapshot type: " + path);
+        }
+        long payloadLength = buffer.getLong(11);
+        long storedChecksum = buffer.getLong(19);
+        if (payloadLength != buffer.capacity() - HEADER_SIZE) {
+            throw new IOException("Truncated snapshot: " + path);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, (int) payloadLength);
+        if (crc.getValue() != storedChecksum) {
+            throw new IOException("Snapshot checksum mismatch: " + path);
+        }
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == 0) {
+            return "";
+        }
+        int offset = buffer.position();
+        buffer.position(offset + length);
+        return new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+    }
+
+    // Writes the payload to a temp file after a placeholder header, then patches
+    // the header and moves the file into place
+    private static class SnapshotOutput {
+        final String path;
+        final String tempPath;
+        final byte recordType;
+        final CRC32 crc = new CRC32();
+        final DataOutputStream data;
+        int recordCount;
+        long payloadLength;
+
+        SnapshotOutput(String path, byte recordType) throws IOException {
+            this.path = path;
+            this.tempPath = path + ".tmp";
+            this.recordType = recordType;
+            File file = new File(tempPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            FileOutputStream fileOut = new FileOutputStream(tempPath);
+            fileOut.write(new byte[HEADER_SIZE]);
+            this.data = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, crc), 1 << 16));
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+
+        void commit() throws IOException {
+            data.close();
+            payloadLength = new File(tempPath).length() - HEADER_SIZE;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.put(recordType);
+            header.putInt(recordCount);
+            header.putLong(payloadLength);
+            header.putLong(crc.getValue());
+            header.flip();
+
+            FileChannel channel = FileChannel.open(Paths.get(tempPath), StandardOpenOption.WRITE);
+            try {
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+
+            try {
+                Files.move(Paths.get(tempPath), Paths.get(path),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(Paths.get(tempPath), Paths.get(path), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        void abort() {
+            try {
+                data.close();
+            } catch (IOException e) {
+                // Already failing
+            }
+            new File(tempPath).delete();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Append-only log of customer records
+Concepts Used : File Handling, Composition, Interfaces, Exception Handling, Crash Recovery
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Customer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+// Append-only log of customer records, kept in a RotatingLog.
+// Every new or changed customer is appended as a full record in the customers.txt format;
+// on replay the last record of a customer wins, so replaying a record twice is harmless.
+public class CustomerLog {
+
+    // Replays a record by putting the customer it holds in place of the loaded one
+    private static final RotatingLog.RecordFormat<Customer> FORMAT = new RotatingLog.RecordFormat<Customer>() {
+        @Override
+        public boolean apply(String line, Map<String, Customer> customers) {
+            Customer customer = Customer.fromFileString(line);
+            if (customer == null) {
+                return false; // Torn write at the tail of the log
+            }
+            customers.put(customer.getCustomerId(), customer);
+            return true;
+        }
+    };
+
+    private final RotatingLog<Customer> log;
+
+    // Constructor - opens the log for appending; coveredGeneration is the generation the
+    // checkpoint covers (-1 if none)
+    public CustomerLog(String logPath, long coveredGeneration) throws IOException {
+        this.log = new RotatingLog<>(logPath, "customer log", FORMAT, coveredGeneration);
+    }
+
+    // Append a group of customer records with a single flush
+    public void append(Collection<Customer> customers) throws IOException {
+        ArrayList<String> records = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            records.add(customer.toFileString());
+        }
+        log.appendAll(records);
+    }
+
+    // Number of records written since the last checkpoint
+    public int getEntryCount() {
+        return log.getEntryCount();
+    }
+
+    // Replay the rotated log (if a checkpoint was interrupted) and the live log onto the customers
+    // Records of coveredGeneration and older are already in the checkpoint and are skipped
+    public int replay(Map<String, Customer> customers, long coveredGeneration) throws IOException {
+        return log.replay(customers, coveredGeneration);
+    }
+
+    // Move the live log aside and start a fresh one (see RotatingLog.rotate())
+    // Returns the generation the next checkpoint covers
+    public long rotate() throws IOException {
+        return log.rotate();
+    }
+
+    // Drop the rotated log once the checkpoint that covers it is on disk
+    public void discardRotated() {
+        log.discardRotated();
+    }
+
+    // Start a background thread that runs the checkpoint task when the log grows
+    public void startCompactor(Runnable checkpointTask, long intervalMillis, int threshold) {
+        log.startCompactor(checkpointTask, intervalMillis, threshold);
+    }
+
+    // Stop the compactor and close the log
+    public void close() {
+        log.close();
+    }
+}
@@ -0,0 +1,287 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Parallel, chunked loading of bills.txt
+Concepts Used : ForkJoinPool, RecursiveTask, MappedByteBuffer, Divide and Conquer,
+                Multithreading, Exception Handling
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Bill;
+import com.retailpos.util.RecordTokenizer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+// Loads bills.txt on all cores.
+// The file is memory-mapped (so it is never copied onto the heap), cut into byte ranges at
+// newline boundaries, and each range is parsed by a ForkJoin task. Results are merged in file order.
+public class ParallelBillLoader {
+
+    // Largest mapped region; regions always end on a line boundary
+    static final int MAX_REGION_SIZE = 1 << 30;
+
+    // Target size of one parse task
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    // Bill segments are UTF-8 whatever the platform default, so names read back the same everywhere
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    // A newline-aligned byte range of one mapped region
+    static class Chunk {
+        final MappedByteBuffer buffer;
+        final long regionStart;
+        final int start;
+        final int end;
+
+        Chunk(MappedByteBuffer buffer, long regionStart, int start, int end) {
+            this.buffer = buffer;
+            this.regionStart = regionStart;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // Line offsets found in one chunk
+    static class ChunkIndex {
+        long[] offsets = new long[1024];
+        int count;
+        int maxBillNumber;
+
+        void add(long offset) {
+            if (count == offsets.length) {
+                long[] larger = new long[offsets.length * 2];
+                System.arraycopy(offsets, 0, larger, 0, count);
+                offsets = larger;
+            }
+            offsets[count++] = offset;
+        }
+    }
+
+    // Load every bill in the file, in file order
+    public static ArrayList<Bill> load(String filePath) throws IOException {
+        return load(filePath, null);
+    }
+
+    // Load the bills accepted by the filter (null accepts all), in file order
+    public static ArrayList<Bill> load(String filePath, Predicate<Bill> filter) throws IOException {
+        ArrayList<MappedByteBuffer> regions = new ArrayList<>();
+        ArrayList<Long> regionStarts = new ArrayList<>();
+        if (!new File(filePath).exists()) {
+            return new ArrayList<>();
+        }
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        try {
+            mapRegions(channel, regions, regionStarts);
+        } finally {
+            channel.close();
+        }
+        return parse(split(regions, regionStarts), filter);
+    }
+
+    // Map the file in regions of at most MAX_REGION_SIZE, each cut at the last newline
+    static void mapRegions(FileChannel channel, List<MappedByteBuffer> regions, List<Long> regionStarts)
+            throws IOException {
+        long size = channel.size();
+        long start = 0;
+        while (start < size) {
+            long length = Math.min(MAX_REGION_SIZE, size - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+            int usable = (int) length;
+            if (start + length < size) {
+                usable = lastNewline(buffer, (int) length) + 1;
+                if (usable <= 0) {
+                    throw new IOException("Bill record longer than " + MAX_REGION_SIZE + " bytes at offset " + start);
+                }
+                buffer.limit(usable);
+            }
+
+            regions.add(buffer);
+            regionStarts.add(start);
+            start += usable;
+        }
+    }
+
+    private static int lastNewline(MappedByteBuffer buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Cut mapped regions into chunks of about CHUNK_SIZE that start and end on line boundaries
+    static ArrayList<Chunk> split(List<MappedByteBuffer> regions, List<Long> regionStarts) {
+        ArrayList<Chunk> chunks = new ArrayList<>();
+        for (int r = 0; r < regions.size(); r++) {
+            MappedByteBuffer buffer = regions.get(r);
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = (int) Math.min((long) start + CHUNK_SIZE, limit);
+                while (end < limit && buffer.get(end - 1) != '\n') {
+                    end++;
+                }
+                chunks.add(new Chunk(buffer, regionStarts.get(r), start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    // Parse all chunks in parallel and merge the bills in order
+    static ArrayList<Bill> parse(List<Chunk> chunks, Predicate<Bill> filter) {
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return ForkJoinPool.commonPool().invoke(new ParseTask(chunks, 0, chunks.size(), filter));
+    }
+
+    // Find the start of every record in all chunks in parallel, one result per chunk in order
+    static List<ChunkIndex> index(List<Chunk> chunks) {
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return ForkJoinPool.commonPool().invoke(new IndexTask(chunks, 0, chunks.size()));
+    }
+
+    // Parse one chunk on the current thread
+    private static ArrayList<Bill> parseChunk(Chunk chunk, Predicate<Bill> filter) {
+        ArrayList<Bill> bills = new ArrayList<>();
+        RecordTokenizer fields = new RecordTokenizer('|');
+        MappedByteBuffer buffer = chunk.buffer;
+        int lineStart = chunk.start;
+        while (lineStart < chunk.end) {
+            int lineEnd = lineStart;
+            while (lineEnd < chunk.end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > lineStart) {
+                Bill bill = Bill.fromFields(fields.reset(buffer, lineStart, contentEnd, CHARSET));
+                if (bill != null && (filter == null || filter.test(bill))) {
+                    bills.add(bill);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return bills;
+    }
+
+    // Record the global offset of each bill line in one chunk
+    private static ChunkIndex indexChunk(Chunk chunk) {
+        ChunkIndex index = new ChunkIndex();
+        MappedByteBuffer buffer = chunk.buffer;
+        int lineStart = chunk.start;
+        while (lineStart < chunk.end) {
+            int lineEnd = lineStart;
+            int idEnd = -1;
+            while (lineEnd < chunk.end && buffer.get(lineEnd) != '\n') {
+                if (idEnd < 0 && buffer.get(lineEnd) == '|') {
+                    idEnd = lineEnd;
+                }
+                lineEnd++;
+            }
+            if (idEnd > lineStart) {
+                index.add(chunk.regionStart + lineStart);
+                int number = billNumber(buffer, lineStart, idEnd);
+                if (number > index.maxBillNumber) {
+                    index.maxBillNumber = number;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return index;
+    }
+
+    // Numeric part of IDs like B0042, or 0 if the ID is not numeric or does not fit an int
+    // (same rules as SegmentedBillStore.billNumber())
+    private static int billNumber(MappedByteBuffer buffer, int idStart, int idEnd) {
+        int value = 0;
+        for (int i = idStart + 1; i < idEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                return 0;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Splits the chunk list in halves until one chunk is left, then merges results in order
+    private static class ParseTask extends RecursiveTask<ArrayList<Bill>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+        private final Predicate<Bill> filter;
+
+        ParseTask(List<Chunk> chunks, int from, int to, Predicate<Bill> filter) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+        }
+
+        @Override
+        protected ArrayList<Bill> compute() {
+            if (to - from == 1) {
+                return parseChunk(chunks.get(from), filter);
+            }
+            int middle = (from + to) >>> 1;
+            ParseTask left = new ParseTask(chunks, from, middle, filter);
+            ParseTask right = new ParseTask(chunks, middle, to, filter);
+            right.fork();
+            ArrayList<Bill> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
+    private static class IndexTask extends RecursiveTask<List<ChunkIndex>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        IndexTask(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ChunkIndex> compute() {
+            if (to - from == 1) {
+                ArrayList<ChunkIndex> single = new ArrayList<>();
+                single.add(indexChunk(chunks.get(from)));
+                return single;
+            }
+            int middle = (from + to) >>> 1;
+            IndexTask left = new IndexTask(chunks, from, middle);
+            IndexTask right = new IndexTask(chunks, middle, to);
+            right.fork();
+            List<ChunkIndex> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Append-only log rotated at each checkpoint
+Concepts Used : Generics, Interfaces, File Handling, BufferedWriter, FileChannel, Threads,
+                Synchronization, Exception Handling, Crash Recovery
+*/
+
+package com.retailpos.storage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+// Append-only log of records written between checkpoints, one record per line.
+// A checkpoint rotates the live log aside, writes its snapshot and then discards the rotated log;
+// if it never finishes, the rotated log is kept and replayed with the live one on the next load.
+// What a record means is up to its RecordFormat - StockJournal and CustomerLog are built on this.
+// Every log file starts with a generation line ("#generation|N"); each rotation starts a higher
+// generation. A checkpoint stores the generation it covers, and replay skips records of that
+// generation and older, so a rotated log left behind by a crash after its checkpoint was written
+// is not applied over the checkpoint a second time.
+// Each append is forced to disk before it returns, so a batch of records costs one fsync.
+public class RotatingLog<T> {
+
+    // How one line of the log is applied to the data being loaded (keyed by ID)
+    public interface RecordFormat<T> {
+
+        // Apply a line; returns false if the line is not a usable record (e.g. a torn write)
+        boolean apply(String line, Map<String, T> target);
+    }
+
+    // Generation of logs written before generation lines existed
+    public static final long UNNUMBERED_GENERATION = 0;
+
+    private static final String GENERATION_PREFIX = "#generation|";
+
+    private final String logPath;
+    private final String rotatedPath;
+    private final String name;
+    private final RecordFormat<T> format;
+    private FileOutputStream out;
+    private BufferedWriter writer;
+    private long generation;
+    private int entryCount;
+    private Thread compactor;
+    private volatile boolean running;
+
+    // Constructor - opens the log for appending; name is used in messages and the compactor's thread name.
+    // coveredGeneration is the generation the current checkpoint covers (-1 if none); a new log
+    // starts above it
+    public RotatingLog(String logPath, String name, RecordFormat<T> format, long coveredGeneration)
+            throws IOException {
+        this.logPath = logPath;
+        this.rotatedPath = logPath + ".old";
+        this.name = name;
+        this.format = format;
+        long liveGeneration = lastGeneration(logPath);
+        if (liveGeneration >= 0) {
+            generation = liveGeneration;
+            openWriter(false);
+        } else {
+            generation = Math.max(Math.max(coveredGeneration, lastGeneration(rotatedPath)),
+                    UNNUMBERED_GENERATION) + 1;
+            openWriter(true);
+        }
+    }
+
+    // Open the live log for appending, starting it with its generation line if it is new
+    private void openWriter(boolean newLog) throws IOException {
+        File file = new File(logPath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        out = new FileOutputStream(logPath, true);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (newLog) {
+            writer.write(GENERATION_PREFIX + generation);
+            writer.newLine();
+            sync();
+        }
+    }
+
+    // Write buffered lines and force them to disk
+    private void sync() throws IOException {
+        writer.flush();
+        out.getChannel().force(false);
+    }
+
+    // Append records with a single flush and fsync
+    public synchronized void appendAll(Collection<String> records) throws IOException {
+        for (String record : records) {
+            writer.write(record);
+            writer.newLine();
+        }
+        sync();
+        entryCount += records.size();
+    }
+
+    // Number of records written since the last checkpoint
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    // Replay the records newer than coveredGeneration, rotated log first (if a checkpoint was
+    // interrupted), then the live log
+    public int replay(Map<String, T> target, long coveredGeneration) throws IOException {
+        int applied = replayFile(rotatedPath, target, coveredGeneration);
+        applied += replayFile(logPath, target, coveredGeneration);
+        return applied;
+    }
+
+    private int replayFile(String path, Map<String, T> target, long coveredGeneration) throws IOException {
+        File file = new File(path);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int applied = 0;
+        long lineGeneration = UNNUMBERED_GENERATION;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long marked = generationOf(line);
+                if (marked >= 0) {
+                    lineGeneration = marked; // A rotated log can hold several generations in turn
+                } else if (lineGeneration > coveredGeneration && format.apply(line, target)) {
+                    applied++;
+                }
+            }
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing " + name + ": " + e.getMessage());
+                }
+            }
+        }
+        return applied;
+    }
+
+    // Generation named by a generation line, or -1 for any other line
+    private static long generationOf(String line) {
+        if (!line.startsWith(GENERATION_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(line.substring(GENERATION_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Highest generation in a log file: -1 if the file is missing or empty,
+    // UNNUMBERED_GENERATION if it has records but no generation line
+    private static long lastGeneration(String path) throws IOException {
+        File file = new File(path);
+        if (!file.exists() || file.length() == 0) {
+            return -1;
+        }
+        long last = UNNUMBERED_GENERATION;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                last = Math.max(last, generationOf(line));
+            }
+        } finally {
+            reader.close();
+        }
+        return last;
+    }
+
+    // Move the live log aside and start a fresh one of the next generation.
+    // Called while the snapshot for a checkpoint is taken, so no record is lost in between.
+    // Returns the generation the checkpoint covers - store it with the checkpoint and pass it to replay()
+    public synchronized long rotate() throws IOException {
+        writer.close();
+        File live = new File(logPath);
+        File rotated = new File(rotatedPath);
+        if (rotated.exists()) {
+            // A previous checkpoint never finished - keep its records until this one lands
+            appendFile(live, rotated);
+            live.delete();
+        } else if (live.exists() && !live.renameTo(rotated)) {
+            openWriter(false);
+            throw new IOException("Could not rotate " + name + " " + logPath);
+        }
+        long covered = generation;
+        generation++;
+        entryCount = 0;
+        openWriter(true);
+        return covered;
+    }
+
+    private void appendFile(File source, File target) throws IOException {
+        if (!source.exists()) {
+            return;
+        }
+        InputStream in = null;
+        FileOutputStream copy = null;
+        try {
+            in = new FileInputStream(source);
+            copy = new FileOutputStream(target, true);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copy.write(buffer, 0, read);
+            }
+            copy.getChannel().force(false); // The source is deleted next
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+            if (copy != null) {
+                copy.close();
+            }
+        }
+    }
+
+    // Drop the rotated log once the checkpoint that covers it is on disk
+    public void discardRotated() {
+        new File(rotatedPath).delete();
+    }
+
+    // Start a background thread that runs the checkpoint task when the log grows
+    public void startCompactor(final Runnable checkpointTask, final long intervalMillis, final int threshold) {
+        running = true;
+        compactor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(intervalMillis);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    if (getEntryCount() >= threshold) {
+                        checkpointTask.run();
+                    }
+                }
+            }
+        }, name.replace(' ', '-') + "-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    // Stop the compactor and close the log
+    public void close() {
+        running = false;
+        if (compactor != null) {
+            compactor.interrupt();
+            try {
+                compactor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing " + name + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,794 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Daily bill segments with manifest and gzip archival
+Concepts Used : Interfaces, File Handling, GZIPInputStream/GZIPOutputStream, ExecutorService,
+                ArrayList, HashMap, Iterator, Exception Handling
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Bill;
+import com.retailpos.repository.BillRepository;
+import com.retailpos.repository.SalesSummary;
+import com.retailpos.util.FileUtil;
+import com.retailpos.util.MoneyUtil;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Bill history split into segments - one per business day, or more if a day exceeds the size limit.
+//
+// A manifest (manifest.txt) records for each segment its bill number range, date range and sales
+// totals, so lookups and reports open only the segments that can matter. The active segment is
+// appended through a BillWriter and its bills are also kept in memory. Closed segments stay as
+// plain text (memory-mapped through BillArchive) for the most recent few, and older ones are
+// gzip-compressed in the background.
+public class SegmentedBillStore implements BillRepository {
+
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 64L << 20;
+    public static final int DEFAULT_HOT_SEGMENTS = 7;
+
+    private static final String MANIFEST_FILE = "manifest.txt";
+    private static final int MANIFEST_FIELDS = 13;
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    // One manifest entry
+    // Format: fileName|status|firstBillNumber|lastBillNumber|firstDate|lastDate|billCount|itemCount|totalSales|totalGst|slabs|discounts|unitCount
+    // where slabs is gstPercent:cessPercent:taxable:gst:cess;..., discounts is the total of item and bill
+    // offers and unitCount the units sold. Shorter entries, written by older versions, are rebuilt from
+    // their segment file
+    private static class Segment {
+        static final String ACTIVE = "ACTIVE";
+        static final String CLOSED = "CLOSED";
+        static final String COMPRESSED = "COMPRESSED";
+
+        String fileName;
+        String status;
+        int firstBillNumber = Integer.MAX_VALUE;
+        int lastBillNumber = 0;
+        int firstDate = Integer.MAX_VALUE;     // yyyyMMdd
+        int lastDate = 0;
+        SalesSummary sales = new SalesSummary();
+
+        Segment(String fileName, String status) {
+            this.fileName = fileName;
+            this.status = status;
+        }
+
+        void add(Bill bill) {
+            int number = billNumber(bill.getBillId());
+            if (number >= 0) {
+                firstBillNumber = Math.min(firstBillNumber, number);
+                lastBillNumber = Math.max(lastBillNumber, number);
+            }
+            int date = dateKey(bill.getBillDate());
+            firstDate = Math.min(firstDate, date);
+            lastDate = Math.max(lastDate, date);
+            sales.add(bill);
+        }
+
+        boolean mayContainBillNumber(int number) {
+            return number < 0 || (number >= firstBillNumber && number <= lastBillNumber);
+        }
+
+        boolean overlaps(int from, int to) {
+            return sales.getBillCount() > 0 && lastDate >= from && firstDate <= to;
+        }
+
+        boolean within(int from, int to) {
+            return firstDate >= from && lastDate <= to;
+        }
+
+        boolean isCompressed() {
+            return COMPRESSED.equals(status);
+        }
+
+        String toManifestLine() {
+            return fileName + "|" + status + "|" + firstBillNumber + "|" + lastBillNumber + "|" +
+                    firstDate + "|" + lastDate + "|" + sales.getBillCount() + "|" + sales.getItemCount() + "|" +
+                    MoneyUtil.format(sales.getTotalSalesPaise()) + "|" + MoneyUtil.format(sales.getTotalGstPaise()) +
+                    "|" + slabsField() + "|" + MoneyUtil.format(sales.getTotalDiscountPaise()) + "|" + sales.getUnitCount();
+        }
+
+        private String slabsField() {
+            StringBuilder field = new StringBuilder();
+            for (SalesSummary.SlabTotal slab : sales.getSlabs()) {
+                if (field.length() > 0) {
+                    field.append(';');
+                }
+                field.append(slab.getGstPercent()).append(':').append(slab.getCessPercent()).append(':');
+                MoneyUtil.appendTo(field, slab.getTaxablePaise()).append(':');
+                MoneyUtil.appendTo(field, slab.getGstPaise()).append(':');
+                MoneyUtil.appendTo(field, slab.getCessPaise());
+            }
+            return field.toString();
+        }
+
+        // Parse a manifest line; null if the line is damaged or has no unit count
+        // (the caller rebuilds the entry from the segment file)
+        static Segment fromManifestLine(String line) {
+            String[] parts = line.split("\\|", -1);
+            if (parts.length < MANIFEST_FIELDS) {
+                return null;
+            }
+            try {
+                return parse(parts);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private static Segment parse(String[] parts) {
+            Segment segment = new Segment(parts[0], parts[1]);
+            segment.firstBillNumber = Integer.parseInt(parts[2]);
+            segment.lastBillNumber = Integer.parseInt(parts[3]);
+            segment.firstDate = Integer.parseInt(parts[4]);
+            segment.lastDate = Integer.parseInt(parts[5]);
+            long totalSales = MoneyUtil.toPaise(Double.parseDouble(parts[8]));
+            long totalGst = MoneyUtil.toPaise(Double.parseDouble(parts[9]));
+            segment.sales = new SalesSummary(Integer.parseInt(parts[6]), Integer.parseInt(parts[7]),
+                    Integer.parseInt(parts[12]), totalSales, totalGst);
+            for (String slab : parts[10].isEmpty() ? new String[0] : parts[10].split(";")) {
+                String[] rates = slab.split(":");
+                segment.sales.addSlab(Integer.parseInt(rates[0]), Integer.parseInt(rates[1]),
+                        MoneyUtil.toPaise(Double.parseDouble(rates[2])), MoneyUtil.toPaise(Double.parseDouble(rates[3])),
+                        MoneyUtil.toPaise(Double.parseDouble(rates[4])));
+            }
+            if (!parts[11].isEmpty()) {
+                segment.sales.addDiscount(MoneyUtil.toPaise(Double.parseDouble(parts[11])));
+            }
+            return segment;
+        }
+    }
+
+    private final String directory;
+    private final long maxSegmentBytes;
+    private final int hotSegments;
+    private final BillWriter.Durability durability;
+    private final long policyValue;
+
+    private final ArrayList<Segment> closedSegments = new ArrayList<>();
+    private Segment active;
+    private int activeDay;             // yyyyMMdd of the active segment, or of the newest closed one
+    private long activeBytes;
+    private BillWriter writer;
+    private final ArrayList<Bill> activeBills = new ArrayList<>();
+    private final HashMap<String, Bill> activeIndex = new HashMap<>();
+
+    // Memory-mapped views of uncompressed closed segments, opened on first use
+    private final HashMap<String, BillArchive> archives = new HashMap<>();
+
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bill-segment-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Constructor with default segment size and hot segment count
+    public SegmentedBillStore(String directory, String legacyFile, BillWriter.Durability durability,
+            long policyValue) throws IOException {
+        this(directory, legacyFile, durability, policyValue, DEFAULT_MAX_SEGMENT_BYTES, DEFAULT_HOT_SEGMENTS);
+    }
+
+    // Constructor - opens the manifest, migrating a legacy single bills file on first use
+    public SegmentedBillStore(String directory, String legacyFile, BillWriter.Durability durability,
+            long policyValue, long maxSegmentBytes, int hotSegments) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        this.policyValue = policyValue;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.hotSegments = hotSegments;
+        new File(directory).mkdirs();
+
+        boolean rebuilt = false;
+        if (new File(manifestPath()).exists()) {
+            rebuilt = loadManifest();
+        } else if (legacyFile != null && new File(legacyFile).length() > 0) {
+            migrateLegacyFile(legacyFile);
+        }
+
+        if (active != null) {
+            openActiveSegment();
+        }
+        if (rebuilt) {
+            saveManifest(); // Rebuilt entries are read from the manifest next time
+        }
+        scheduleCompression();
+    }
+
+    private String manifestPath() {
+        return directory + File.separator + MANIFEST_FILE;
+    }
+
+    private String pathOf(Segment segment) {
+        return directory + File.separator + segment.fileName;
+    }
+
+    private String compressedPathOf(Segment segment) {
+        return pathOf(segment) + ".gz";
+    }
+
+    // Read the manifest; the active segment's totals are rebuilt from its file, as are those of any
+    // segment whose manifest line is damaged or from an older version. Returns true if any was rebuilt
+    private boolean loadManifest() throws IOException {
+        boolean rebuilt = false;
+        for (String line : FileUtil.readFromFile(manifestPath())) {
+            Segment segment = Segment.fromManifestLine(line);
+            if (segment == null && !line.trim().isEmpty()) {
+                segment = rebuildSegment(line);
+                if (segment == null) {
+                    System.err.println("Error reading bill manifest, entry skipped: " + line);
+                    continue;
+                }
+                if (line.split("\\|", -1).length >= MANIFEST_FIELDS) {
+                    System.err.println("Error reading bill manifest, entry rebuilt from " + segment.fileName);
+                }
+                rebuilt = true;
+            }
+            if (segment == null) {
+                continue;
+            }
+            if (Segment.ACTIVE.equals(segment.status)) {
+                active = segment;
+            } else {
+                closedSegments.add(segment);
+                activeDay = Math.max(activeDay, dayOfFileName(segment.fileName)); // A new segment starts no earlier
+            }
+        }
+        return rebuilt;
+    }
+
+    // Entry for the segment named by a manifest line that cannot be used, rebuilt from the segment's file;
+    // null if the line names no segment file on disk
+    private Segment rebuildSegment(String line) throws IOException {
+        String[] parts = line.split("\\|", -1);
+        String fileName = parts[0].trim();
+        if (!fileName.startsWith("bills-") || fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) {
+            return null;
+        }
+        Segment rebuilt = new Segment(fileName, Segment.CLOSED);
+        Iterable<Bill> bills;
+        if (new File(pathOf(rebuilt)).exists()) {
+            if (active == null && parts.length > 1 && Segment.ACTIVE.equals(parts[1])) {
+                rebuilt.status = Segment.ACTIVE;
+                return rebuilt; // openActiveSegment() reads its bills
+            }
+            bills = ParallelBillLoader.load(pathOf(rebuilt));
+        } else if (new File(compressedPathOf(rebuilt)).exists()) {
+            rebuilt.status = Segment.COMPRESSED;
+            bills = readCompressed(rebuilt, null, Integer.MAX_VALUE);
+        } else {
+            return null;
+        }
+        for (Bill bill : bills) {
+            rebuilt.add(bill);
+        }
+        return rebuilt;
+    }
+
+    // Load the active segment's bills and reopen its writer
+    private void openActiveSegment() throws IOException {
+        String path = pathOf(active);
+        Segment rebuilt = new Segment(active.fileName, Segment.ACTIVE);
+        for (Bill bill : ParallelBillLoader.load(path)) {
+            rebuilt.add(bill);
+            activeBills.add(bill);
+            activeIndex.put(bill.getBillId(), bill);
+        }
+        active = rebuilt;
+        activeDay = Math.max(activeDay, dayOfFileName(active.fileName));
+        activeBytes = new File(path).length();
+        writer = new BillWriter(path, durability, policyValue);
+    }
+
+    // Split a legacy bills.txt into segments by day, then set the old file aside
+    private void migrateLegacyFile(String legacyFile) throws IOException {
+        BufferedReader reader = null;
+        BufferedWriter segmentWriter = null;
+        Segment segment = null;
+        int segmentDay = -1;
+        long segmentBytes = 0;
+        try {
+            // The legacy file was written with the platform default charset
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(legacyFile), Charset.defaultCharset()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Bill bill = Bill.fromFileString(line);
+                if (bill == null) {
+                    continue;
+                }
+                int day = dateKey(bill.getBillDate());
+                if (segment == null || day != segmentDay || segmentBytes >= maxSegmentBytes) {
+                    if (segmentWriter != null) {
+                        segmentWriter.close();
+                        closedSegments.add(segment);
+                    }
+                    segment = new Segment(newSegmentName(day), Segment.CLOSED);
+                    segmentDay = day;
+                    segmentBytes = 0;
+                    segmentWriter = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(pathOf(segment)), CHARSET));
+                }
+                segmentWriter.write(line);
+                segmentWriter.newLine();
+                segmentBytes += BillWriter.encode(line).length;
+                segment.add(bill);
+            }
+            if (segmentWriter != null) {
+                segmentWriter.close();
+                segmentWriter = null;
+                closedSegments.add(segment);
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+            if (segmentWriter != null) {
+                segmentWriter.close();
+            }
+        }
+
+        saveManifest();
+        File legacy = new File(legacyFile);
+        if (!legacy.renameTo(new File(legacyFile + ".migrated"))) {
+            System.err.println("Could not set aside migrated bills file " + legacyFile);
+        }
+        // Leave an empty file behind for tools that expect it
+        new File(legacyFile).createNewFile();
+    }
+
+    // Segment file name for a day, numbered so a day can span several segments
+    private String newSegmentName(int day) {
+        int sequence = 1;
+        String prefix = "bills-" + day + "-";
+        for (Segment segment : closedSegments) {
+            if (segment.fileName.startsWith(prefix)) {
+                sequence++;
+            }
+        }
+        if (active != null && active.fileName.startsWith(prefix)) {
+            sequence++;
+        }
+        return prefix + String.format("%03d", sequence) + ".txt";
+    }
+
+    private static int dayOfFileName(String fileName) {
+        try {
+            return Integer.parseInt(fileName.substring(6, 14));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private synchronized void saveManifest() throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        for (Segment segment : closedSegments) {
+            lines.add(segment.toManifestLine());
+        }
+        if (active != null) {
+            lines.add(active.toManifestLine());
+        }
+        FileUtil.replaceAllLines(manifestPath(), lines);
+    }
+
+    // Append a bill to the active segment, rotating first on a later day or when the segment is full.
+    // A bill dated before the active day (a clock set back, or a bill started before midnight) stays in
+    // the active segment - segments only move forward, and each one's date range covers what it holds.
+    // Segment bookkeeping and queueing happen under the lock; waiting for the sync does not, so
+    // PER_BILL checkouts running together still share one fsync
+    @Override
+    public void save(Bill bill) throws IOException {
+        byte[] record = BillWriter.encode(bill.toFileString());
+        BillWriter target;
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            int day = dateKey(bill.getBillDate());
+            if (active != null && (day > activeDay || activeBytes >= maxSegmentBytes)) {
+                rotate();
+            }
+            if (active == null) {
+                activeDay = Math.max(day, activeDay);
+                active = new Segment(newSegmentName(activeDay), Segment.ACTIVE);
+                activeBytes = 0;
+                writer = new BillWriter(pathOf(active), durability, policyValue);
+                saveManifest();
+            }
+
+            target = writer;
+            written = target.enqueue(record);
+            activeBytes += record.length;
+            active.add(bill);
+            activeBills.add(bill);
+            activeIndex.put(bill.getBillId(), bill);
+        }
+        if (durability == BillWriter.Durability.PER_BILL) {
+            target.awaitWritten(written);
+        }
+    }
+
+    // Close the active segment and queue compression of segments that left the hot window
+    private void rotate() throws IOException {
+        writer.close();
+        writer = null;
+        active.status = Segment.CLOSED;
+        closedSegments.add(active);
+        active = null;
+        activeBills.clear();
+        activeIndex.clear();
+        saveManifest();
+        scheduleCompression();
+    }
+
+    // Compress closed segments older than the newest hotSegments ones
+    private synchronized void scheduleCompression() {
+        int plainToKeep = hotSegments;
+        for (int i = closedSegments.size() - 1; i >= 0; i--) {
+            final Segment segment = closedSegments.get(i);
+            if (segment.isCompressed()) {
+                new File(pathOf(segment)).delete(); // Left over from an interrupted run
+                continue;
+            }
+            if (plainToKeep > 0) {
+                plainToKeep--;
+                continue;
+            }
+            compressor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    compress(segment);
+                }
+            });
+        }
+    }
+
+    // gzip one closed segment, switch the manifest over, then delete the plain file
+    private void compress(Segment segment) {
+        synchronized (this) {
+            if (segment.isCompressed()) {
+                return; // Queued again by a later rotation
+            }
+        }
+        File plain = new File(pathOf(segment));
+        File temp = new File(compressedPathOf(segment) + ".tmp");
+        try {
+            InputStream in = null;
+            OutputStream out = null;
+            try {
+                in = new BufferedInputStream(new FileInputStream(plain));
+                out = new GZIPOutputStream(new FileOutputStream(temp), 1 << 16);
+                byte[] buffer = new byte[1 << 16];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                if (in != null) {
+                    in.close();
+                }
+                if (out != null) {
+                    out.close();
+                }
+            }
+            File target = new File(compressedPathOf(segment));
+            target.delete();
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not rename " + temp);
+            }
+            synchronized (this) {
+                segment.status = Segment.COMPRESSED;
+                archives.remove(segment.fileName);
+                saveManifest();
+            }
+            plain.delete();
+        } catch (IOException e) {
+            System.err.println("Error compressing bill segment " + segment.fileName + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    // Look up a bill by ID, opening only segments whose bill number range can hold it
+    @Override
+    public Bill getBill(String billId) {
+        ArrayList<Segment> candidates = new ArrayList<>();
+        synchronized (this) {
+            Bill bill = activeIndex.get(billId);
+            if (bill != null) {
+                return bill;
+            }
+            int number = billNumber(billId);
+            for (int i = closedSegments.size() - 1; i >= 0; i--) {
+                Segment segment = closedSegments.get(i);
+                if (segment.mayContainBillNumber(number)) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        for (Segment segment : candidates) {
+            try {
+                Bill bill = findInSegment(segment, billId);
+                if (bill != null) {
+                    return bill;
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading bill segment " + segment.fileName + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Bill findInSegment(Segment segment, final String billId) throws IOException {
+        BillArchive archive = archiveFor(segment);
+        if (archive != null) {
+            return archive.getBill(billId);
+        }
+        ArrayList<Bill> found = readCompressed(segment, bill -> bill.getBillId().equals(billId), 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    // Find bills accepted by the filter, in order; from/to (inclusive, null for open) limit the segments read
+    @Override
+    public ArrayList<Bill> search(Predicate<Bill> filter, LocalDate from, LocalDate to) {
+        final int fromKey = from == null ? 0 : dateKey(from);
+        final int toKey = to == null ? Integer.MAX_VALUE : dateKey(to);
+        Predicate<Bill> inRange = bill -> {
+            int date = dateKey(bill.getBillDate());
+            return date >= fromKey && date <= toKey;
+        };
+        Predicate<Bill> matches = filter == null ? inRange : inRange.and(filter);
+
+        ArrayList<Bill> results = new ArrayList<>();
+        for (Segment segment : segmentsOverlapping(fromKey, toKey)) {
+            try {
+                BillArchive archive = archiveFor(segment);
+                if (archive != null) {
+                    results.addAll(archive.findAll(matches));
+                } else {
+                    results.addAll(readCompressed(segment, matches, Integer.MAX_VALUE));
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading bill segment " + segment.fileName + ": " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            for (Bill bill : activeBills) {
+                if (matches.test(bill)) {
+                    results.add(bill);
+                }
+            }
+        }
+        return results;
+    }
+
+    // Sales totals for a date range (null for open); segments fully inside the range are not opened
+    @Override
+    public SalesSummary summarize(LocalDate from, LocalDate to) {
+        int fromKey = from == null ? 0 : dateKey(from);
+        int toKey = to == null ? Integer.MAX_VALUE : dateKey(to);
+        SalesSummary summary = new SalesSummary();
+        ArrayList<Segment> partial = new ArrayList<>();
+        for (Segment segment : segmentsOverlapping(fromKey, toKey)) {
+            if (segment.within(fromKey, toKey)) {
+                summary.add(segment.sales);
+            } else {
+                partial.add(segment);
+            }
+        }
+
+        for (Segment segment : partial) {
+            for (Bill bill : loadSegment(segment)) {
+                int date = dateKey(bill.getBillDate());
+                if (date >= fromKey && date <= toKey) {
+                    summary.add(bill);
+                }
+            }
+        }
+        synchronized (this) {
+            for (Bill bill : activeBills) {
+                int date = dateKey(bill.getBillDate());
+                if (date >= fromKey && date <= toKey) {
+                    summary.add(bill);
+                }
+            }
+        }
+        return summary;
+    }
+
+    private synchronized ArrayList<Segment> segmentsOverlapping(int fromKey, int toKey) {
+        ArrayList<Segment> result = new ArrayList<>();
+        for (Segment segment : closedSegments) {
+            if (segment.overlaps(fromKey, toKey)) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    // Every bill, oldest segment first, reading one segment at a time
+    @Override
+    public Iterable<Bill> bills() {
+        final ArrayList<Segment> segments;
+        final ArrayList<Bill> current;
+        synchronized (this) {
+            segments = new ArrayList<>(closedSegments);
+            current = new ArrayList<>(activeBills);
+        }
+        return new Iterable<Bill>() {
+            @Override
+            public Iterator<Bill> iterator() {
+                return new Iterator<Bill>() {
+                    private int nextSegment = 0;
+                    private Iterator<Bill> segmentBills = advance();
+
+                    private Iterator<Bill> advance() {
+                        while (nextSegment < segments.size()) {
+                            Iterator<Bill> bills = loadSegment(segments.get(nextSegment++)).iterator();
+                            if (bills.hasNext()) {
+                                return bills;
+                            }
+                        }
+                        return current.iterator();
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!segmentBills.hasNext() && nextSegment < segments.size()) {
+                            segmentBills = advance();
+                        }
+                        return segmentBills.hasNext();
+                    }
+
+                    @Override
+                    public Bill next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return segmentBills.next();
+                    }
+                };
+            }
+        };
+    }
+
+    // All bills of one closed segment
+    private Iterable<Bill> loadSegment(Segment segment) {
+        try {
+            BillArchive archive = archiveFor(segment);
+            if (archive != null) {
+                return archive;
+            }
+            return readCompressed(segment, null, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            System.err.println("Error reading bill segment " + segment.fileName + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Memory-mapped view of an uncompressed segment, or null if the segment is compressed
+    private BillArchive archiveFor(Segment segment) throws IOException {
+        synchronized (this) {
+            if (segment.isCompressed()) {
+                return null;
+            }
+            BillArchive archive = archives.get(segment.fileName);
+            if (archive == null) {
+                archive = new BillArchive(pathOf(segment));
+                archives.put(segment.fileName, archive);
+            }
+            return archive;
+        }
+    }
+
+    // Stream a compressed segment, keeping at most limit bills accepted by the filter
+    private ArrayList<Bill> readCompressed(Segment segment, Predicate<Bill> filter, int limit) throws IOException {
+        ArrayList<Bill> bills = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(compressedPathOf(segment)), 1 << 16), CHARSET));
+        try {
+            String line;
+            while (bills.size() < limit && (line = reader.readLine()) != null) {
+                Bill bill = Bill.fromFileString(line);
+                if (bill != null && (filter == null || filter.test(bill))) {
+                    bills.add(bill);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return bills;
+    }
+
+    // Total number of bills, from the manifest
+    @Override
+    public synchronized int getBillCount() {
+        int count = activeBills.size();
+        for (Segment segment : closedSegments) {
+            count += segment.sales.getBillCount();
+        }
+        return count;
+    }
+
+    // Highest bill number stored (B0042 -> 42)
+    @Override
+    public synchronized int getMaxBillNumber() {
+        int max = active != null ? active.lastBillNumber : 0;
+        for (Segment segment : closedSegments) {
+            max = Math.max(max, segment.lastBillNumber);
+        }
+        return max;
+    }
+
+    // Flush the active segment, record it in the manifest and wait for pending compression
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            saveManifest();
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Numeric part of IDs like B0042, or -1 if the ID is not of that form
+    public static int billNumber(String billId) {
+        if (billId == null || billId.length() < 2) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 1; i < billId.length(); i++) {
+            int digit = billId.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // "dd-MM-yyyy HH:mm:ss" -> yyyyMMdd, or 0 if the date is malformed
+    public static int dateKey(String billDate) {
+        if (billDate == null || billDate.length() < 10) {
+            return 0;
+        }
+        int day = twoDigits(billDate, 0);
+        int month = twoDigits(billDate, 3);
+        int year = twoDigits(billDate, 6) * 100 + twoDigits(billDate, 8);
+        if (day < 0 || month < 0 || year < 0) {
+            return 0;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static int dateKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private static int twoDigits(String text, int index) {
+        int tens = text.charAt(index) - '0';
+        int ones = text.charAt(index + 1) - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        return tens * 10 + ones;
+    }
+}
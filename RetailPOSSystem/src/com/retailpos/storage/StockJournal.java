@@ -0,0 +1,89 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Append-only journal of stock changes
+Concepts Used : File Handling, Composition, Interfaces, Exception Handling, Crash Recovery
+*/
+
+package com.retailpos.storage;
+
+import com.retailpos.model.Product;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+
+// Append-only journal of stock changes, kept in a RotatingLog.
+// Each entry records the delta and the resulting stock, so replaying an entry twice is harmless.
+// Format: productId|delta|newStock
+public class StockJournal {
+
+    // Replays an entry by setting the product's stock to the recorded result
+    private static final RotatingLog.RecordFormat<Product> FORMAT = new RotatingLog.RecordFormat<Product>() {
+        @Override
+        public boolean apply(String line, Map<String, Product> inventory) {
+            String[] parts = line.split("\\|");
+            if (parts.length < 3) {
+                return false; // Torn write at the tail of the journal
+            }
+            Product product = inventory.get(parts[0]);
+            if (product == null) {
+                return false; // Product was deleted after this entry was written
+            }
+            try {
+                product.setStockQuantity(Integer.parseInt(parts[2]));
+                return true;
+            } catch (NumberFormatException e) {
+                return false; // Ignore corrupt entry
+            }
+        }
+    };
+
+    private final RotatingLog<Product> log;
+
+    // Constructor - opens the journal for appending; coveredGeneration is the generation the
+    // checkpoint covers (-1 if none)
+    public StockJournal(String journalPath, long coveredGeneration) throws IOException {
+        this.log = new RotatingLog<>(journalPath, "stock journal", FORMAT, coveredGeneration);
+    }
+
+    // Append several stock changes with a single flush
+    public void appendAll(String[] productIds, int[] deltas, int[] newStocks, int count) throws IOException {
+        ArrayList<String> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(productIds[i] + "|" + deltas[i] + "|" + newStocks[i]);
+        }
+        log.appendAll(records);
+    }
+
+    // Number of entries written since the last checkpoint
+    public int getEntryCount() {
+        return log.getEntryCount();
+    }
+
+    // Replay the rotated journal (if a checkpoint was interrupted) and the live journal onto the inventory
+    // Records of coveredGeneration and older are already in the checkpoint and are skipped
+    public int replay(Map<String, Product> inventory, long coveredGeneration) throws IOException {
+        return log.replay(inventory, coveredGeneration);
+    }
+
+    // Move the live journal aside and start a fresh one (see RotatingLog.rotate())
+    // Returns the generation the next checkpoint covers
+    public long rotate() throws IOException {
+        return log.rotate();
+    }
+
+    // Drop the rotated journal once the checkpoint that covers it is on disk
+    public void discardRotated() {
+        log.discardRotated();
+    }
+
+    // Start a background thread that runs the checkpoint task when the journal grows
+    public void startCompactor(Runnable checkpointTask, long intervalMillis, int threshold) {
+        log.startCompactor(checkpointTask, intervalMillis, threshold);
+    }
+
+    // Stop the compactor and close the journal
+    public void close() {
+        log.close();
+    }
+}
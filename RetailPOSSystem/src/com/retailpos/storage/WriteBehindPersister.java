@@ -0,0 +1,218 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Storage - Write-behind persistence of dirty records
+Concepts Used : Threads, BlockingQueue, Backpressure, HashMap, HashSet,
+                CompletableFuture, Exception Handling
+*/
+
+package com.retailpos.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind persistence.
+// Services mark records dirty instead of saving on the caller's thread; one background writer
+// collects the marks, merges repeats of the same key, and calls each store's flusher once per interval.
+// The mark queue is bounded, so callers block (backpressure) if the writer falls behind.
+public class WriteBehindPersister {
+
+    // Writes the given dirty records of one store
+    public interface Flusher {
+        void flush(Set<String> dirtyKeys) throws IOException;
+    }
+
+    // A dirty mark, or a flush request when store is null
+    private static class DirtyMark {
+        final String store;
+        final String key;
+        final CompletableFuture<Void> flushed;
+
+        DirtyMark(String store, String key, CompletableFuture<Void> flushed) {
+            this.store = store;
+            this.key = key;
+            this.flushed = flushed;
+        }
+    }
+
+    private final long intervalMillis;
+    private final BlockingQueue<DirtyMark> queue;
+    private final Map<String, Flusher> flushers = new LinkedHashMap<>();
+    private final HashMap<String, Set<String>> pending = new HashMap<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Constructor - starts the background writer
+    public WriteBehindPersister(long intervalMillis, int queueCapacity) {
+        this.intervalMillis = intervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "write-behind");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Register the flusher of a store (e.g. "products", "customers")
+    public synchronized void register(String store, Flusher flusher) {
+        flushers.put(store, flusher);
+    }
+
+    // Mark one record dirty; blocks while the queue is full
+    public void markDirty(String store, String key) {
+        if (!running) {
+            throw new IllegalStateException("Write-behind persister is shut down");
+        }
+        try {
+            queue.put(new DirtyMark(store, key, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a dirty record", e);
+        }
+    }
+
+    // Write everything marked so far and wait until it is done.
+    // Throws IOException if a store could not be written; its records stay dirty for the next round
+    public void flush() throws IOException {
+        if (!running) {
+            throw new IOException("Write-behind persister is shut down");
+        }
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        try {
+            queue.put(new DirtyMark(null, null, flushed));
+            flushed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing pending changes", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Error flushing pending changes", cause);
+        }
+    }
+
+    // Flush pending changes and stop the writer.
+    // The writer stops even if the flush fails; the failure is then thrown, so the caller knows
+    // some changes were not saved
+    public void shutdown() throws IOException {
+        if (!running) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            running = false;
+            writerThread.interrupt();
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // A flush requested while the writer was stopping is answered here
+            ArrayList<DirtyMark> leftover = new ArrayList<>();
+            queue.drainTo(leftover);
+            for (DirtyMark mark : leftover) {
+                if (mark.flushed != null) {
+                    mark.flushed.completeExceptionally(new IOException("Write-behind persister is shut down"));
+                }
+            }
+        }
+    }
+
+    // Background loop - collect marks until the interval ends, then flush each dirty store once
+    private void writeLoop() {
+        long nextFlush = System.currentTimeMillis() + intervalMillis;
+        ArrayList<DirtyMark> drained = new ArrayList<>();
+        while (running) {
+            ArrayList<CompletableFuture<Void>> waiters = new ArrayList<>();
+            try {
+                long wait = Math.max(0, nextFlush - System.currentTimeMillis());
+                DirtyMark first = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    drained.add(first);
+                    queue.drainTo(drained);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+
+            for (DirtyMark mark : drained) {
+                if (mark.store == null) {
+                    waiters.add(mark.flushed);
+                } else {
+                    Set<String> keys = pending.get(mark.store);
+                    if (keys == null) {
+                        keys = new HashSet<>();
+                        pending.put(mark.store, keys);
+                    }
+                    keys.add(mark.key);
+                }
+            }
+            drained.clear();
+
+            if (!waiters.isEmpty() || System.currentTimeMillis() >= nextFlush) {
+                IOException failure = flushPending();
+                nextFlush = System.currentTimeMillis() + intervalMillis;
+                for (CompletableFuture<Void> waiter : waiters) {
+                    if (failure != null) {
+                        waiter.completeExceptionally(failure);
+                    } else {
+                        waiter.complete(null);
+                    }
+                }
+            }
+        }
+    }
+
+    // Call each store's flusher with its dirty keys; failed stores stay dirty for the next round.
+    // Returns an IOException naming the failed stores, or null if everything was written
+    private IOException flushPending() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        ArrayList<String> failedStores = new ArrayList<>();
+        Exception firstError = null;
+        Map<String, Flusher> stores;
+        synchronized (this) {
+            stores = new LinkedHashMap<>(flushers);
+        }
+        for (Map.Entry<String, Flusher> entry : stores.entrySet()) {
+            Set<String> keys = pending.remove(entry.getKey());
+            if (keys == null) {
+                continue;
+            }
+            try {
+                entry.getValue().flush(keys);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error saving " + entry.getKey() + ": " + e.getMessage());
+                pending.put(entry.getKey(), keys);
+                failedStores.add(entry.getKey());
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (failedStores.isEmpty()) {
+            return null;
+        }
+        return new IOException("Could not save " + String.join(", ", failedStores) + ": "
+                + firstError.getMessage(), firstError);
+    }
+}
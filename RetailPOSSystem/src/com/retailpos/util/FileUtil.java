@@ -9,6 +9,10 @@ Concepts Used : File Handling, BufferedReader, BufferedWriter, FileReader, FileW
 package com.retailpos.util;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 
 // Utility class for file operations
@@ -19,6 +23,14 @@ public class FileUtil {
     public static final String CUSTOMERS_FILE = "data/customers.txt";
     public static final String BILLS_FILE = "data/bills.txt";
     public static final String USERS_FILE = "data/users.txt";
+    public static final String STOCK_JOURNAL_FILE = "data/stock_journal.txt";
+    public static final String CUSTOMER_LOG_FILE = "data/customer_log.txt";
+    public static final String PRODUCTS_SNAPSHOT = "data/products.bin";
+    public static final String CUSTOMERS_SNAPSHOT = "data/customers.bin";
+    public static final String BILL_SEGMENTS_DIR = "data/bills";
+    public static final String SEQUENCES_FILE = "data/sequences.txt";
+    public static final String TAX_RATES_FILE = "data/tax_rates.txt";
+    public static final String PROMOTIONS_FILE = "data/promotions.txt";
 
     // Write a single line to a file
     public static void writeToFile(String filePath, String data, boolean append) throws IOException {
@@ -71,6 +83,20 @@ public class FileUtil {
         return lines;
     }
 
+    // First line of a file, or null if the file is missing or empty
+    public static String readFirstLine(String filePath) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return null;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
     // Write multiple lines to a file
     public static void writeAllLines(String filePath, ArrayList<String> lines, boolean append) throws IOException {
         BufferedWriter writer = null;
@@ -94,6 +120,36 @@ public class FileUtil {
         }
     }
 
+    // Replace the whole file atomically (write to a temp file, then rename over the original)
+    public static void replaceAllLines(String filePath, ArrayList<String> lines) throws IOException {
+        String tempPath = filePath + ".tmp";
+        FileOutputStream out = null;
+        try {
+            File file = new File(tempPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            out = new FileOutputStream(file);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            out.getChannel().force(false); // On disk before it replaces the old file
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+        try {
+            Files.move(Paths.get(tempPath), Paths.get(filePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(Paths.get(tempPath), Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     // Delete a line from file
     public static boolean deleteLine(String filePath, String lineToDelete) throws IOException {
         ArrayList<String> lines = readFromFile(filePath);
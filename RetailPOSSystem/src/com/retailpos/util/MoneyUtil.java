@@ -0,0 +1,50 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Money Utility - Fixed-point amounts in whole paise
+Concepts Used : Static Methods, Fixed-Point Arithmetic, StringBuilder, Rounding
+*/
+
+package com.retailpos.util;
+
+// Amounts are kept as whole paise (long) so sums are exact; these methods convert at the edges
+public class MoneyUtil {
+
+    // Rupees to whole paise, rounded to the nearest paisa (halves away from zero)
+    public static long toPaise(double rupees) {
+        return rupees >= 0 ? Math.round(rupees * 100) : -Math.round(-rupees * 100);
+    }
+
+    // Paise to rupees, for display and old double-based callers
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    // Percentage of an amount in paise, rounded to the nearest paisa (halves away from zero).
+    // Integer arithmetic only, so the same amount always rounds the same way
+    public static long percentOf(long paise, long percent) {
+        long scaled = paise * percent;
+        return scaled >= 0 ? (scaled + 50) / 100 : -((-scaled + 50) / 100);
+    }
+
+    // "1234.50" - paise as rupees with two decimals, without going through double
+    public static String format(long paise) {
+        StringBuilder text = new StringBuilder(24);
+        appendTo(text, paise);
+        return text.toString();
+    }
+
+    // Append paise as rupees with two decimals
+    public static StringBuilder appendTo(StringBuilder text, long paise) {
+        if (paise < 0) {
+            text.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % 100;
+        text.append(paise / 100).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Parsing Utility - Single-pass tokenizer for delimited records
+Concepts Used : CharSequence, ByteBuffer, Number Parsing, Object Reuse,
+                Exception Handling
+*/
+
+package com.retailpos.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+// Reusable tokenizer for delimited records such as "P001|Laptop|Electronics|45000.0|15|..."
+// It walks the record once, reads ints and doubles straight from the characters and only
+// creates a String for fields that are read with nextString().
+// One instance is reset for each record; instances are not thread-safe.
+public class RecordTokenizer {
+
+    // Powers of ten that are exact in a double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Largest mantissa that a double holds exactly (2^53)
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final char delimiter;
+
+    // Source is either a CharSequence or a ByteBuffer
+    private CharSequence chars;
+    private ByteBuffer bytes;
+    private Charset charset;
+    private byte[] scratch = new byte[64];
+
+    private int end;
+    private int position;
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean done;
+
+    // Constructor
+    public RecordTokenizer(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    // Start tokenizing a whole record
+    public RecordTokenizer reset(CharSequence record) {
+        return reset(record, 0, record.length());
+    }
+
+    // Start tokenizing part of a character sequence
+    public RecordTokenizer reset(CharSequence record, int start, int end) {
+        this.chars = record;
+        this.bytes = null;
+        this.charset = null;
+        return resetRange(start, end);
+    }
+
+    // Start tokenizing a byte range (e.g. one line of a mapped file)
+    public RecordTokenizer reset(ByteBuffer record, int start, int end, Charset charset) {
+        this.chars = null;
+        this.bytes = record;
+        this.charset = charset;
+        return resetRange(start, end);
+    }
+
+    private RecordTokenizer resetRange(int start, int end) {
+        this.position = start;
+        this.end = end;
+        this.fieldStart = start;
+        this.fieldEnd = start;
+        this.done = false;
+        return this;
+    }
+
+    private char charAt(int index) {
+        if (chars != null) {
+            return chars.charAt(index);
+        }
+        return (char) (bytes.get(index) & 0xFF);
+    }
+
+    // Number of fields left, counted like String.split (trailing empty fields are dropped)
+    public int fieldCount() {
+        if (done) {
+            return 0;
+        }
+        int count = 0;
+        int fields = 0;
+        int start = position;
+        for (int i = position; i <= end; i++) {
+            if (i == end || charAt(i) == delimiter) {
+                fields++;
+                if (i > start) {
+                    count = fields; // Last non-empty field seen so far
+                }
+                start = i + 1;
+            }
+        }
+        // A record with no content still splits into one (empty) field
+        return (count == 0 && position == end) ? 1 : count;
+    }
+
+    // Check if another field is available
+    public boolean hasNext() {
+        return !done;
+    }
+
+    // Move to the next field without reading it
+    public void skip() {
+        advance();
+    }
+
+    // Length of the field that was read last
+    public int fieldLength() {
+        return fieldEnd - fieldStart;
+    }
+
+    private void advance() {
+        if (done) {
+            throw new IllegalStateException("No more fields in record");
+        }
+        fieldStart = position;
+        int i = position;
+        while (i < end && charAt(i) != delimiter) {
+            i++;
+        }
+        fieldEnd = i;
+        if (i >= end) {
+            done = true;
+            position = end;
+        } else {
+            position = i + 1;
+        }
+    }
+
+    // Read the next field as a String
+    public String nextString() {
+        advance();
+        return currentString();
+    }
+
+    private String currentString() {
+        int length = fieldEnd - fieldStart;
+        if (length == 0) {
+            return "";
+        }
+        if (chars != null) {
+            return chars.subSequence(fieldStart, fieldEnd).toString();
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = bytes.get(fieldStart + i);
+        }
+        return new String(scratch, 0, length, charset);
+    }
+
+    // Point another tokenizer at the next field, e.g. to split a nested list
+    public void nextInto(RecordTokenizer child) {
+        advance();
+        if (chars != null) {
+            child.reset(chars, fieldStart, fieldEnd);
+        } else {
+            child.reset(bytes, fieldStart, fieldEnd, charset);
+        }
+    }
+
+    // Read the next field as an int, with the same rules as Integer.parseInt
+    public int nextInt() {
+        advance();
+        int i = fieldStart;
+        if (i == fieldEnd) {
+            throw invalidNumber();
+        }
+        boolean negative = false;
+        char first = charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == fieldEnd) {
+                throw invalidNumber();
+            }
+        }
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber();
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalidNumber();
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw invalidNumber();
+        }
+        return (int) value;
+    }
+
+    // Read the next field as a double.
+    // Plain decimals (up to 15-16 significant digits, small exponents) are converted exactly
+    // without creating a String; anything else falls back to Double.parseDouble.
+    public double nextDouble() {
+        advance();
+        int i = fieldStart;
+        boolean negative = false;
+        if (i < fieldEnd && (charAt(i) == '-' || charAt(i) == '+')) {
+            negative = charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < fieldEnd; i++) {
+            char c = charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return slowDouble(); // Too many significant digits to be exact
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return slowDouble();
+        }
+
+        if (i < fieldEnd) {
+            char c = charAt(i);
+            if (c != 'e' && c != 'E') {
+                return slowDouble();
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < fieldEnd && (charAt(i) == '-' || charAt(i) == '+')) {
+                negativeExponent = charAt(i) == '-';
+                i++;
+            }
+            if (i == fieldEnd) {
+                return slowDouble();
+            }
+            int exponent = 0;
+            for (; i < fieldEnd; i++) {
+                int digit = charAt(i) - '0';
+                if (digit < 0 || digit > 9 || exponent > 1000) {
+                    return slowDouble();
+                }
+                exponent = exponent * 10 + digit;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        double value;
+        if (scale == 0) {
+            value = mantissa;
+        } else if (scale > 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return slowDouble();
+        }
+        return negative ? -value : value;
+    }
+
+    private double slowDouble() {
+        return Double.parseDouble(currentString());
+    }
+
+    private NumberFormatException invalidNumber() {
+        return new NumberFormatException("For input string: \"" + currentString() + "\"");
+    }
+}
@@ -0,0 +1,156 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Timing Utility - Hashed timer wheel for many short-lived timeouts
+Concepts Used : Threads, ConcurrentLinkedQueue, AtomicInteger, Arrays, Modular Arithmetic,
+                Exception Handling
+*/
+
+package com.retailpos.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hashed timer wheel.
+// Time is cut into ticks and each timeout goes into the slot of the tick it expires in, so scheduling
+// and cancelling are O(1) however many timeouts are waiting. One background thread advances the wheel
+// once per tick and runs the timeouts that are due; timeouts further away than one turn of the wheel
+// wait out the extra turns in their slot. Expiry is accurate to one tick.
+public class TimerWheel {
+
+    // A scheduled task; cancel() stops it if it has not run yet
+    public static class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        // Cancel the task; returns false if it already ran (or was cancelled)
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private final long tickMillis;
+    private final ArrayList<Timeout>[] slots;
+    private final ConcurrentLinkedQueue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private final Thread workerThread;
+    private volatile boolean running = true;
+    private long tick;
+
+    // Constructor - starts the wheel thread; wheelSize slots of tickMillis each make one turn
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.startTime = System.currentTimeMillis();
+        this.workerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        }, name);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    // Run the task once delayMillis have passed; it runs on the wheel thread, so it must be short
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timer wheel is stopped");
+        }
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0, delayMillis));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // Stop the wheel thread; timeouts that have not run are dropped
+    public void shutdown() {
+        running = false;
+        workerThread.interrupt();
+        try {
+            workerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Wheel thread - sleep to the end of each tick, place new timeouts, then run the slot that is due
+    private void runWheel() {
+        while (running) {
+            long tickEnd = startTime + (tick + 1) * tickMillis;
+            long sleep = tickEnd - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+            placeNewTimeouts();
+            expireSlot(slots[(int) (tick % slots.length)]);
+            tick++;
+        }
+    }
+
+    // Move newly scheduled timeouts into the slot of the tick they expire in
+    private void placeNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long expiryTick = Math.max(tick, (timeout.deadline - startTime) / tickMillis);
+            timeout.remainingRounds = (expiryTick - tick) / slots.length;
+            slots[(int) (expiryTick % slots.length)].add(timeout);
+        }
+    }
+
+    // Run the due timeouts of a slot; the rest have one less turn to wait
+    private void expireSlot(ArrayList<Timeout> slot) {
+        Iterator<Timeout> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                iterator.remove();
+                if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Error running timeout: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -3,12 +3,15 @@ Developer Name : Atul Mishra
 PRN Number : STT-25128071903
 Responsibility: Validation Utility - Input validation methods
 Concepts Used : Static Methods, String Parsing, Wrapper Classes (Integer, Double),
-                Exception Handling, Regular Expressions
+                Exception Handling, Regular Expressions, LocalDate
 */
 
 package com.retailpos.util;
 
 import com.retailpos.exception.InvalidInputException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 //Utility class for input validation
 
@@ -91,6 +94,16 @@ public class ValidationUtil {
         }
     }
 
+    // Validate date in dd-MM-yyyy format (same as bill dates)
+    public static LocalDate validateDate(String input, String fieldName) throws InvalidInputException {
+        try {
+            validateNotEmpty(input, fieldName);
+            return LocalDate.parse(input.trim(), DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        } catch (DateTimeParseException e) {
+            throw new InvalidInputException(fieldName + " must be in format dd-MM-yyyy", e);
+        }
+    }
+
     // Validate choice from menu
     public static int validateChoice(String choice, int min, int max) throws InvalidInputException {
         int value = validateInteger(choice, "Choice");
@@ -0,0 +1,93 @@
+/*
+Developer Name : Aryan Pandey
+PRN Number : STT-25128071902
+Responsibility: Test - Bill records read back with the amounts they were saved with
+Concepts Used : File Format, Fixed-Point Arithmetic, Assertions
+*/
+
+package com.retailpos.model;
+
+// Saves bills with toFileString() and reads them back with fromFileString(); the totals, discounts,
+// GST and cess must come back exactly. Records written by older versions must still read back with
+// the amounts they were charged. Run: java -cp bin:test-bin com.retailpos.model.BillRoundTripTest
+public class BillRoundTripTest {
+
+    public static void main(String[] args) {
+        // Item offers only - the record ends in an empty promotions field
+        Bill itemOffers = new Bill("B0001", "C001", "Rahul Sharma", "admin");
+        itemOffers.addItem(new Bill.BillItem("P001", "Soap", 2, 5000L, 18, 0, 5000L, "BOGO1"));
+        itemOffers.addItem(new Bill.BillItem("P002", "Dal", 1, 12000L, 5, 0));
+        checkRoundTrip("item offers only", itemOffers);
+
+        // Item offer plus a bill offer
+        Bill billOffer = new Bill("B0002", "C001", "Rahul Sharma", "admin");
+        billOffer.addItem(new Bill.BillItem("P001", "Soap", 2, 5000L, 18, 0, 5000L, "BOGO1"));
+        billOffer.addItem(new Bill.BillItem("P003", "Cola", 3, 4000L, 28, 12));
+        billOffer.setBillDiscount(10, "FEST10");
+        checkRoundTrip("item and bill offers", billOffer);
+
+        // No offers - the record has no discount fields at all
+        Bill plain = new Bill("B0003", "C002", "Priya", "cashier");
+        plain.addItem(new Bill.BillItem("P002", "Dal", 4, 12000L, 5, 0));
+        checkRoundTrip("no offers", plain);
+
+        // Before tax slabs: items are productId:name:qty:price, all taxed at 18%
+        Bill beforeSlabs = checkOldRecord("before tax slabs",
+                "B0004|C001|Rahul Sharma|admin|05-01-2025 10:15:00|100.0|18.0|118.0|P001:Soap:2:50.0",
+                10000L, 1800L, 0L, 11800L, 1);
+        check(beforeSlabs.getItems().get(0).getQuantity() == 2, "before tax slabs: quantity");
+        check(beforeSlabs.getSlabCount() == 1 && beforeSlabs.getSlabGstPaise(0) == 1800L,
+                "before tax slabs: GST slab");
+
+        // Tax slabs and cess, written before promotions: no discount fields
+        String beforePromotions = "B0005|C002|Priya|cashier|06-01-2025 11:00:00|360.00|45.60|420.00|"
+                + "P003:Cola:3:40.00:28:12;P002:Dal:2:120.00:5:0";
+        checkOldRecord("before promotions", beforePromotions, 36000L, 4560L, 1440L, 42000L, 2);
+        check(Bill.fromFileString(beforePromotions).toFileString().equals(beforePromotions),
+                "before promotions: record changed on re-save");
+
+        System.out.println("BillRoundTripTest passed");
+    }
+
+    private static void checkRoundTrip(String name, Bill bill) {
+        String line = bill.toFileString();
+        Bill back = Bill.fromFileString(line);
+        check(back != null, name + ": record did not parse: " + line);
+        check(back.getSubtotalPaise() == bill.getSubtotalPaise(), name + ": subtotal");
+        check(back.getDiscountPaise() == bill.getDiscountPaise(), name + ": discount " + back.getDiscountPaise()
+                + " != " + bill.getDiscountPaise());
+        check(back.getLineDiscountPaise() == bill.getLineDiscountPaise(), name + ": item offers");
+        check(back.getBillDiscountPaise() == bill.getBillDiscountPaise(), name + ": bill discount");
+        check(back.getBillPromotions().equals(bill.getBillPromotions()), name + ": promotions");
+        check(back.getGstPaise() == bill.getGstPaise(), name + ": GST");
+        check(back.getCessPaise() == bill.getCessPaise(), name + ": cess " + back.getCessPaise()
+                + " != " + bill.getCessPaise());
+        check(back.getTotalPaise() == bill.getTotalPaise(), name + ": total");
+        check(back.getItemCount() == bill.getItemCount(), name + ": lines");
+        for (int slab = 0; slab < back.getSlabCount(); slab++) {
+            check(back.getSlabCessPaise(slab) >= 0, name + ": negative cess in slab " + slab);
+        }
+        check(back.toFileString().equals(line), name + ": record changed on re-save");
+    }
+
+    // Read a record written by an older version; the saved amounts must come back with no discount
+    private static Bill checkOldRecord(String name, String line, long subtotalPaise, long gstPaise, long cessPaise,
+            long totalPaise, int lines) {
+        Bill bill = Bill.fromFileString(line);
+        check(bill != null, name + ": record did not parse: " + line);
+        check(bill.getSubtotalPaise() == subtotalPaise, name + ": subtotal " + bill.getSubtotalPaise());
+        check(bill.getGstPaise() == gstPaise, name + ": GST " + bill.getGstPaise());
+        check(bill.getCessPaise() == cessPaise, name + ": cess " + bill.getCessPaise());
+        check(bill.getTotalPaise() == totalPaise, name + ": total " + bill.getTotalPaise());
+        check(bill.getDiscountPaise() == 0, name + ": discount " + bill.getDiscountPaise());
+        check(bill.getBillPromotions().isEmpty(), name + ": promotions");
+        check(bill.getItemCount() == lines, name + ": lines");
+        return bill;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Test - Concurrent checkouts of one product never oversell it
+Concepts Used : Threads, ExecutorService, CountDownLatch, AtomicLong, Assertions
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.exception.InsufficientStockException;
+import com.retailpos.exception.InvalidInputException;
+import com.retailpos.model.Bill;
+import com.retailpos.model.Customer;
+import com.retailpos.model.Product;
+import com.retailpos.repository.InMemoryBillRepository;
+import com.retailpos.repository.InMemoryCustomerRepository;
+import com.retailpos.repository.InMemoryProductRepository;
+import com.retailpos.util.MoneyUtil;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Many terminals check out the same product at once (with repeat scans, quantity changes and
+// cancelled bills) while the product is edited. Every unit must be sold at most once: the units
+// on completed bills plus the stock left must equal the starting stock, nothing may stay held,
+// and the customer's purchases must add up to the completed bills.
+// Run: java -cp bin:test-bin com.retailpos.service.ConcurrentCheckoutStressTest
+public class ConcurrentCheckoutStressTest {
+
+    private static final int INITIAL_STOCK = 2000;
+    private static final int TERMINALS = 16;
+    private static final int BILLS_PER_TERMINAL = 200;
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<Product> catalog = new ArrayList<>();
+        catalog.add(new Product("P001", "Tea Pack", "Grocery", 120.0, INITIAL_STOCK, "250g"));
+        ArrayList<Customer> customers = new ArrayList<>();
+        customers.add(new Customer("C001", "Walk-in", "9999999999", "walkin@store.in", 0.0));
+
+        final InventoryService inventory = new InventoryService(new InMemoryProductRepository(catalog), null,
+                new SequenceService(null), new TaxService(null));
+        final BillingService billing = new BillingService(inventory, new InMemoryCustomerRepository(customers),
+                new InMemoryBillRepository(), null, ReservationService.DEFAULT_TTL_MILLIS,
+                inventory.getSequenceService(), new PromotionService(null));
+
+        // Invoices and confirmations are not needed here
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        final AtomicLong unitsSold = new AtomicLong();
+        final AtomicLong unitsAdded = new AtomicLong();
+        final AtomicLong paiseSold = new AtomicLong();
+        final AtomicLong billsCompleted = new AtomicLong();
+        final AtomicLong rejectedScans = new AtomicLong();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(TERMINALS + 1);
+        ArrayList<Future<?>> lanes = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < TERMINALS; t++) {
+                final int seed = t;
+                lanes.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            checkoutLane(billing, seed, unitsSold, paiseSold, billsCompleted, rejectedScans);
+                        } catch (Throwable e) {
+                            failures.add(e);
+                        }
+                    }
+                }));
+            }
+
+            // An editor changes the product and its stock while the lanes sell it, the way the edit screen does
+            lanes.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 200; i++) {
+                            Product product = inventory.getProduct("P001");
+                            Product edited = new Product("P001", product.getProductName(), product.getCategory(),
+                                    product.getPrice(), 0, "250g pack " + i);
+                            int delta = i % 2 == 0 ? 2 : -1;
+                            try {
+                                inventory.updateProduct("P001", edited, delta);
+                                unitsAdded.addAndGet(delta);
+                            } catch (InvalidInputException e) {
+                                // Sold out meanwhile - nothing to remove
+                            }
+                            Thread.yield();
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            }));
+
+            start.countDown();
+            for (Future<?> lane : lanes) {
+                lane.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+            System.setOut(console);
+        }
+
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError("a checkout lane failed");
+            error.initCause(failures.get(0));
+            throw error;
+        }
+
+        Product product = inventory.getProduct("P001");
+        check(product.getHeldQuantity() == 0, "units still held after every bill closed: " + product.getHeldQuantity());
+        check(product.getStockQuantity() >= 0, "stock went negative: " + product.getStockQuantity());
+        long stocked = INITIAL_STOCK + unitsAdded.get();
+        check(unitsSold.get() <= stocked, "oversold: " + unitsSold.get() + " units of " + stocked);
+        check(product.getOnHandQuantity() == stocked - unitsSold.get(),
+                "final stock " + product.getOnHandQuantity() + " but " + unitsSold.get() + " of "
+                        + stocked + " units were sold");
+        check(rejectedScans.get() > 0, "demand never exceeded the stock, so overselling was not exercised");
+        check(billing.getBillCount() == billsCompleted.get(),
+                "stored bills " + billing.getBillCount() + ", completed " + billsCompleted.get());
+        long customerPaise = Math.round(billing.getCustomer("C001").getTotalPurchaseAmount() * 100);
+        check(customerPaise == paiseSold.get(),
+                "customer purchases " + customerPaise + " paise, completed bills " + paiseSold.get());
+
+        billing.shutdown();
+        inventory.shutdown();
+        System.out.println("ConcurrentCheckoutStressTest passed (" + billsCompleted.get() + " bills, "
+                + unitsSold.get() + " units sold, " + rejectedScans.get() + " scans refused)");
+    }
+
+    // One terminal: open bills, scan, sometimes change or cancel, and complete the rest
+    private static void checkoutLane(BillingService billing, int seed, AtomicLong unitsSold, AtomicLong paiseSold,
+            AtomicLong billsCompleted, AtomicLong rejectedScans) throws Exception {
+        Random random = new Random(seed);
+        BillingService.Terminal terminal = billing.openTerminal("T" + seed);
+        for (int i = 0; i < BILLS_PER_TERMINAL; i++) {
+            Bill bill = billing.createBill("C001", "cashier" + seed, terminal);
+            try {
+                billing.addItemToBill(bill, "P001", 1 + random.nextInt(5));
+                if (random.nextBoolean()) {
+                    billing.addItemToBill(bill, "P001", 1 + random.nextInt(3)); // Repeat scan
+                }
+                if (random.nextInt(4) == 0) {
+                    billing.changeItemQuantity(bill, "P001", 1 + random.nextInt(8));
+                }
+            } catch (InsufficientStockException e) {
+                rejectedScans.incrementAndGet();
+            }
+
+            if (bill.getItems().isEmpty() || random.nextInt(10) == 0) {
+                billing.cancelBilling(bill);
+                continue;
+            }
+            billing.completeBilling(bill);
+            unitsSold.addAndGet(bill.getItem("P001").getQuantity());
+            paiseSold.addAndGet(MoneyUtil.toPaise(bill.getTotalAmount()));
+            billsCompleted.incrementAndGet();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
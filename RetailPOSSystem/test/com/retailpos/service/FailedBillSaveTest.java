@@ -0,0 +1,154 @@
+/*
+Developer Name : Vaibhavi Anand
+PRN Number : STT-25128071922
+Responsibility: Test - A bill that cannot be saved sells nothing
+Concepts Used : Interfaces, Exception Handling, Assertions
+*/
+
+package com.retailpos.service;
+
+import com.retailpos.model.Bill;
+import com.retailpos.model.Customer;
+import com.retailpos.model.Product;
+import com.retailpos.repository.BillRepository;
+import com.retailpos.repository.InMemoryBillRepository;
+import com.retailpos.repository.InMemoryCustomerRepository;
+import com.retailpos.repository.InMemoryProductRepository;
+import com.retailpos.repository.SalesSummary;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+// Completing a bill whose bill store fails must throw, sell no stock and add nothing to the
+// customer, leaving the bill open with its stock held - so it can be completed again once the
+// store works, or cancelled.
+// Run: java -cp bin:test-bin com.retailpos.service.FailedBillSaveTest
+public class FailedBillSaveTest {
+
+    // Bills in memory; save() fails while failing is set
+    private static class FailingBillRepository implements BillRepository {
+        private final InMemoryBillRepository bills = new InMemoryBillRepository();
+        boolean failing;
+
+        @Override
+        public void save(Bill bill) throws IOException {
+            if (failing) {
+                throw new IOException("disk full");
+            }
+            bills.save(bill);
+        }
+
+        @Override
+        public Bill getBill(String billId) {
+            return bills.getBill(billId);
+        }
+
+        @Override
+        public ArrayList<Bill> search(Predicate<Bill> filter, LocalDate from, LocalDate to) {
+            return bills.search(filter, from, to);
+        }
+
+        @Override
+        public Iterable<Bill> bills() {
+            return bills.bills();
+        }
+
+        @Override
+        public SalesSummary summarize(LocalDate from, LocalDate to) {
+            return bills.summarize(from, to);
+        }
+
+        @Override
+        public int getBillCount() {
+            return bills.getBillCount();
+        }
+
+        @Override
+        public int getMaxBillNumber() {
+            return bills.getMaxBillNumber();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<Product> catalog = new ArrayList<>();
+        catalog.add(new Product("P001", "Tea Pack", "Grocery", 120.0, 10, "250g"));
+        ArrayList<Customer> customers = new ArrayList<>();
+        customers.add(new Customer("C001", "Walk-in", "9999999999", "walkin@store.in", 0.0));
+
+        InventoryService inventory = new InventoryService(new InMemoryProductRepository(catalog), null,
+                new SequenceService(null), new TaxService(null));
+        FailingBillRepository billStore = new FailingBillRepository();
+        BillingService billing = new BillingService(inventory, new InMemoryCustomerRepository(customers), billStore,
+                null, ReservationService.DEFAULT_TTL_MILLIS, inventory.getSequenceService(), new PromotionService(null));
+
+        // Invoices and confirmations are not needed here
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        try {
+            Product product = inventory.getProduct("P001");
+
+            // The bill store fails: nothing is sold and the bill keeps its stock held
+            Bill bill = billing.createBill("C001", "cashier");
+            billing.addItemToBill(bill, "P001", 3);
+            billStore.failing = true;
+            boolean thrown = false;
+            try {
+                billing.completeBilling(bill);
+            } catch (IOException e) {
+                thrown = true;
+            }
+            check(thrown, "a failed bill save was not reported");
+            check(billing.getBillCount() == 0, "bill stored although the save failed");
+            check(product.getOnHandQuantity() == 10, "stock sold although the bill was not saved: "
+                    + product.getOnHandQuantity() + " on hand");
+            check(product.getHeldQuantity() == 3, "bill lost its held stock: " + product.getHeldQuantity() + " held");
+            check(billing.getCustomer("C001").getTotalPurchaseAmount() == 0.0,
+                    "customer charged although the bill was not saved");
+
+            // Once the store works the same bill completes
+            billStore.failing = false;
+            billing.completeBilling(bill);
+            check(billing.getBillCount() == 1, "bill not stored on retry");
+            check(product.getOnHandQuantity() == 7, "retry sold " + (10 - product.getOnHandQuantity()) + " units, not 3");
+            check(product.getHeldQuantity() == 0, "units still held after the bill completed");
+            check(Math.abs(billing.getCustomer("C001").getTotalPurchaseAmount() - bill.getTotalAmount()) < 0.005,
+                    "customer purchases do not match the completed bill");
+
+            // A bill that failed to save can also be cancelled, returning its stock
+            Bill cancelled = billing.createBill("C001", "cashier");
+            billing.addItemToBill(cancelled, "P001", 2);
+            billStore.failing = true;
+            try {
+                billing.completeBilling(cancelled);
+            } catch (IOException e) {
+                billing.cancelBilling(cancelled);
+            }
+            check(product.getStockQuantity() == 7 && product.getHeldQuantity() == 0,
+                    "cancelling after a failed save left " + product.getHeldQuantity() + " units held");
+        } finally {
+            System.setOut(console);
+        }
+
+        billing.shutdown();
+        inventory.shutdown();
+        System.out.println("FailedBillSaveTest passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
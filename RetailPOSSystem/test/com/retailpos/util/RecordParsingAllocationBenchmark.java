@@ -0,0 +1,222 @@
+/*
+Developer Name : Atul Mishra
+PRN Number : STT-25128071903
+Responsibility: Benchmark - Bytes allocated per bill record, String.split against RecordTokenizer
+Concepts Used : ThreadMXBean, String.split, Number Parsing, Object Reuse
+*/
+
+package com.retailpos.util;
+
+import com.retailpos.model.Bill;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Measures the heap allocated while parsing bills.txt records, before and after RecordTokenizer.
+// "split" is the parsing path the models used before: String.split on '|', ';' and ':', then
+// Integer.parseInt / Double.parseDouble of each field. "tokenizer" reads the same fields with
+// RecordTokenizer. Both keep the same String fields (IDs, names, date) and parse every number.
+// "Bill.fromFileString" is the full model parse as the stores run it, for reference.
+// Not a check - it only prints figures, so it is not named *Test.
+// Run: java -cp bin:test-bin com.retailpos.util.RecordParsingAllocationBenchmark [bills.txt] [passes]
+public class RecordParsingAllocationBenchmark {
+
+    private static final int GENERATED_BILLS = 200000;
+    private static final int WARMUP_PASSES = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // One way of parsing a record; returns a checksum of what it read so nothing is optimised away
+    private interface Parser {
+        long parse(String line);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<String> lines = args.length > 0 ? FileUtil.readFromFile(args[0]) : generateBills(GENERATED_BILLS);
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (lines.isEmpty()) {
+            System.out.println("No records to parse");
+            return;
+        }
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM cannot report allocated bytes per thread");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        Parser split = new Parser() {
+            @Override
+            public long parse(String line) {
+                return parseWithSplit(line);
+            }
+        };
+        Parser tokenizer = new Parser() {
+            private final RecordTokenizer fields = new RecordTokenizer('|');
+            private final RecordTokenizer items = new RecordTokenizer(';');
+            private final RecordTokenizer itemFields = new RecordTokenizer(':');
+
+            @Override
+            public long parse(String line) {
+                return parseWithTokenizer(line, fields, items, itemFields);
+            }
+        };
+        Parser model = new Parser() {
+            @Override
+            public long parse(String line) {
+                Bill bill = Bill.fromFileString(line);
+                return bill == null ? 0 : bill.getTotalPaise() + bill.getItems().size();
+            }
+        };
+
+        long splitSum = run(split, lines, WARMUP_PASSES);
+        long tokenizerSum = run(tokenizer, lines, WARMUP_PASSES);
+        run(model, lines, WARMUP_PASSES);
+        if (splitSum != tokenizerSum) {
+            throw new AssertionError("split and tokenizer read different values: " + splitSum + " vs " + tokenizerSum);
+        }
+
+        System.out.println("Parsing " + lines.size() + " bill records, " + passes + " passes each");
+        System.out.println(String.format("%-22s %14s %14s %12s", "Parser", "bytes/record", "MB/pass", "ms/pass"));
+        long splitBytes = report("split", split, lines, passes);
+        long tokenizerBytes = report("tokenizer", tokenizer, lines, passes);
+        report("Bill.fromFileString", model, lines, passes);
+        System.out.println(String.format("Tokenizer allocates %.1f%% of what split does (%.1fx less)",
+                100.0 * tokenizerBytes / splitBytes, (double) splitBytes / Math.max(tokenizerBytes, 1)));
+    }
+
+    // Parse every line passes times; returns the checksum of the last pass
+    private static long run(Parser parser, ArrayList<String> lines, int passes) {
+        long sum = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            sum = 0;
+            for (String line : lines) {
+                sum += parser.parse(line);
+            }
+        }
+        return sum;
+    }
+
+    // Print the bytes allocated and time taken per pass; returns the bytes allocated per pass
+    private static long report(String name, Parser parser, ArrayList<String> lines, int passes) {
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        run(parser, lines, passes);
+        long nanos = System.nanoTime() - start;
+        long bytes = (THREADS.getThreadAllocatedBytes(threadId) - bytesBefore) / passes;
+        System.out.println(String.format("%-22s %14.1f %14.1f %12.1f", name, (double) bytes / lines.size(),
+                bytes / (1024.0 * 1024.0), nanos / 1e6 / passes));
+        return bytes;
+    }
+
+    // The pre-tokenizer parsing path
+    private static long parseWithSplit(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length < 8) {
+            return 0;
+        }
+        long sum = keep(parts[0]) + keep(parts[1]) + keep(parts[2]) + keep(parts[3]) + keep(parts[4]);
+        sum += MoneyUtil.toPaise(Double.parseDouble(parts[5]));
+        sum += MoneyUtil.toPaise(Double.parseDouble(parts[6]));
+        sum += MoneyUtil.toPaise(Double.parseDouble(parts[7]));
+        if (parts.length > 8 && !parts[8].isEmpty()) {
+            for (String item : parts[8].split(";")) {
+                String[] fields = item.split(":");
+                if (fields.length < 4) {
+                    continue;
+                }
+                sum += keep(fields[0]) + keep(fields[1]) + Integer.parseInt(fields[2]);
+                sum += MoneyUtil.toPaise(Double.parseDouble(fields[3]));
+                if (fields.length >= 6) {
+                    sum += Integer.parseInt(fields[4]) + Integer.parseInt(fields[5]);
+                }
+                if (fields.length >= 8) {
+                    sum += MoneyUtil.toPaise(Double.parseDouble(fields[6])) + keep(fields[7]);
+                }
+            }
+        }
+        if (parts.length > 10) {
+            sum += MoneyUtil.toPaise(Double.parseDouble(parts[9])) + Integer.parseInt(parts[10]);
+            if (parts.length > 11) {
+                sum += keep(parts[11]);
+            }
+        }
+        return sum;
+    }
+
+    // The same fields read with RecordTokenizer
+    private static long parseWithTokenizer(String line, RecordTokenizer fields, RecordTokenizer items,
+            RecordTokenizer itemFields) {
+        fields.reset(line);
+        int fieldCount = fields.fieldCount();
+        if (fieldCount < 8) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < 5; i++) {
+            sum += keep(fields.nextString());
+        }
+        sum += MoneyUtil.toPaise(fields.nextDouble());
+        sum += MoneyUtil.toPaise(fields.nextDouble());
+        sum += MoneyUtil.toPaise(fields.nextDouble());
+        if (fieldCount > 8) {
+            fields.nextInto(items);
+            if (fields.fieldLength() > 0) {
+                int itemCount = items.fieldCount();
+                for (int i = 0; i < itemCount; i++) {
+                    items.nextInto(itemFields);
+                    int itemFieldCount = itemFields.fieldCount();
+                    if (itemFieldCount < 4) {
+                        continue;
+                    }
+                    sum += keep(itemFields.nextString()) + keep(itemFields.nextString()) + itemFields.nextInt();
+                    sum += MoneyUtil.toPaise(itemFields.nextDouble());
+                    if (itemFieldCount >= 6) {
+                        sum += itemFields.nextInt() + itemFields.nextInt();
+                    }
+                    if (itemFieldCount >= 8) {
+                        sum += MoneyUtil.toPaise(itemFields.nextDouble()) + keep(itemFields.nextString());
+                    }
+                }
+            }
+        }
+        if (fieldCount > 10) {
+            sum += MoneyUtil.toPaise(fields.nextDouble()) + fields.nextInt();
+            if (fieldCount > 11) {
+                sum += keep(fields.nextString());
+            }
+        }
+        return sum;
+    }
+
+    // A String field the model would keep
+    private static long keep(String field) {
+        return field.length();
+    }
+
+    // Bills like the ones the billing screen writes: 1 to 8 lines, some with item offers
+    private static ArrayList<String> generateBills(int count) {
+        Random random = new Random(42);
+        ArrayList<String> lines = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Bill bill = new Bill(String.format("B%05d", i), String.format("C%04d", 1 + random.nextInt(5000)),
+                    "Customer " + random.nextInt(5000), "cashier");
+            int lineCount = 1 + random.nextInt(8);
+            for (int j = 0; j < lineCount; j++) {
+                String productId = String.format("P%04d", 1 + random.nextInt(2000));
+                long pricePaise = 500 + random.nextInt(500000);
+                int quantity = 1 + random.nextInt(5);
+                if (random.nextInt(5) == 0) {
+                    bill.addItem(new Bill.BillItem(productId, "Product " + productId, quantity, pricePaise, 18, 0,
+                            pricePaise / 10, "PROMO" + random.nextInt(20)));
+                } else {
+                    bill.addItem(new Bill.BillItem(productId, "Product " + productId, quantity, pricePaise,
+                            random.nextBoolean() ? 18 : 5, 0));
+                }
+            }
+            lines.add(bill.toFileString());
+        }
+        return lines;
+    }
+}